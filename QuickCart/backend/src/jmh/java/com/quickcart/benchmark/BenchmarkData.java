@@ -0,0 +1,90 @@
+package com.quickcart.benchmark;
+
+import com.quickcart.entity.Cart;
+import com.quickcart.entity.CartItem;
+import com.quickcart.entity.Order;
+import com.quickcart.entity.OrderItem;
+import com.quickcart.entity.Product;
+import com.quickcart.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * In-memory entity graphs shared by the benchmarks; nothing here touches a database.
+ */
+final class BenchmarkData {
+
+    private static final String[] CATEGORIES = {"Clothing", "Footwear", "Electronics", "Home"};
+    private static final String[] BRANDS = {"Acme", "Northwind", "Contoso", "Globex"};
+    private static final String[] COLORS = {"Black", "White", "Red", "Blue"};
+    private static final String[] SIZES = {"S", "M", "L", "XL"};
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id, String username, User.Role role) {
+        User user = new User(username, username + "@example.com", "password");
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+
+    static Product product(long id, User seller) {
+        int i = (int) id;
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setDescription("Description of product " + id + " with enough text to be realistic");
+        product.setPrice(BigDecimal.valueOf(100 + i % 900, 2));
+        product.setStock(50 + i % 50);
+        product.setCategory(CATEGORIES[i % CATEGORIES.length]);
+        product.setBrand(BRANDS[i % BRANDS.length]);
+        product.setColor(COLORS[i % COLORS.length]);
+        product.setSize(SIZES[i % SIZES.length]);
+        product.setImageUrl(id + "_product.jpg");
+        product.setDiscountPercentage(BigDecimal.valueOf(i % 30));
+        product.setSeller(seller);
+        product.setCreatedAt(LocalDateTime.now());
+        product.setUpdatedAt(LocalDateTime.now());
+        return product;
+    }
+
+    static Order order(long id, User buyer, User seller, int lines) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUser(buyer);
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setShippingAddress("1 Benchmark Street");
+        order.setPaymentMethod(Order.PaymentMethod.CREDIT_CARD);
+        order.setOrderDate(LocalDateTime.now());
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 1; i <= lines; i++) {
+            OrderItem item = new OrderItem(product(i, seller), 1 + i % 3, null);
+            item.setId((long) i);
+            item.setOrder(order);
+            total = total.add(item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    static Cart cart(long id, User buyer, User seller, int lines) {
+        Cart cart = new Cart();
+        cart.setId(id);
+        cart.setUser(buyer);
+        cart.setCreatedAt(LocalDateTime.now());
+        cart.setUpdatedAt(LocalDateTime.now());
+        for (int i = 1; i <= lines; i++) {
+            CartItem item = new CartItem();
+            item.setId((long) i);
+            item.setProduct(product(i, seller));
+            item.setQuantity(1 + i % 3);
+            item.setCreatedAt(LocalDateTime.now());
+            item.setUpdatedAt(LocalDateTime.now());
+            cart.addCartItem(item);
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,120 @@
+package com.quickcart.benchmark;
+
+import com.quickcart.QuickcartBackendApplication;
+import com.quickcart.entity.Product;
+import com.quickcart.entity.User;
+import com.quickcart.payload.CartItemRequest;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.service.CartService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add-to-cart through CartService on the test profile's in-memory H2 database, for a cart
+ * that already holds {@code cartLines} lines. Boots the application, so it measures the
+ * statements a mutation issues and not only mapping; compare runs across cart sizes.
+ *
+ * The test profile's statement counter is swapped for a no-op: it keeps every statement,
+ * so left in place each operation would get slower as the run goes on. Warmup is long
+ * because Hibernate's paths take about a minute to compile on a single core; shorter
+ * runs rank cart sizes by how far the JIT got rather than by the work done.
+ *
+ * Results on one core, JDK 17, us/op with 99.9% error (lower is better). "Before" is
+ * the full cart reload after each write, "after" the delta response:
+ * <pre>
+ * cartLines   before          after
+ *         1    228 +-  66     151 +- 36
+ *        20    535 +- 212     223 +- 42
+ *       100   1159 +-  79     521 +- 40
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 30, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class CartAddItemBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int cartLines;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private Long userId;
+    private CartItemRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuickcartBackendApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN")
+                // An argument, since default properties lose to the test profile's own setting
+                .run("--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + NoOpStatementInspector.class.getName());
+        cartService = context.getBean(CartService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+        User seller = new User("benchSeller", "benchSeller@example.com", "password");
+        seller.setRole(User.Role.SELLER);
+        seller = userRepository.save(seller);
+
+        User shopper = new User("benchShopper", "benchShopper@example.com", "password");
+        shopper.setRole(User.Role.USER);
+        userId = userRepository.save(shopper).getId();
+
+        for (int i = 0; i < cartLines; i++) {
+            Product product = new Product();
+            product.setName("Bench product " + i);
+            product.setDescription("Benchmark cart product " + i);
+            product.setPrice(BigDecimal.valueOf(1000 + i, 2));
+            product.setDiscountPercentage(BigDecimal.valueOf(i % 30));
+            // Every invocation adds one more unit, so stock must outlast the run
+            product.setStock(Integer.MAX_VALUE / 2);
+            product.setSeller(seller);
+            product = productRepository.save(product);
+
+            CartItemRequest line = new CartItemRequest();
+            line.setProductId(product.getId());
+            line.setQuantity(1);
+            cartService.addItemToCart(userId, line);
+            request = line;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object addItem() {
+        return cartService.addItemToCart(userId, request);
+    }
+
+    public static class NoOpStatementInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            return sql;
+        }
+    }
+}
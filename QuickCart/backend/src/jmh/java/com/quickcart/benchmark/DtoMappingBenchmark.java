@@ -0,0 +1,70 @@
+package com.quickcart.benchmark;
+
+import com.quickcart.entity.Cart;
+import com.quickcart.entity.Order;
+import com.quickcart.entity.Product;
+import com.quickcart.entity.User;
+import com.quickcart.payload.CartMapper;
+import com.quickcart.payload.CartResponseDTO;
+import com.quickcart.payload.OrderDto;
+import com.quickcart.payload.OrderMapper;
+import com.quickcart.payload.ProductMapper;
+import com.quickcart.payload.ProductResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping on the hot read paths: product responses, order responses
+ * and the cart view returned by CartController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"1", "20"})
+    public int lines;
+
+    private Product product;
+    private Order order;
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        User seller = BenchmarkData.user(1L, "seller", User.Role.SELLER);
+        User buyer = BenchmarkData.user(2L, "buyer", User.Role.USER);
+
+        product = BenchmarkData.product(1L, seller);
+        order = BenchmarkData.order(1L, buyer, seller, lines);
+        cart = BenchmarkData.cart(1L, buyer, seller, lines);
+    }
+
+    @Benchmark
+    public ProductResponseDTO mapProduct() {
+        return ProductMapper.toDto(product, product.getStock());
+    }
+
+    @Benchmark
+    public OrderDto mapOrder() {
+        return OrderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public CartResponseDTO mapCart() {
+        return CartMapper.toDto(cart);
+    }
+}
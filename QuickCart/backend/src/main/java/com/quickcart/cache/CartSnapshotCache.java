@@ -0,0 +1,116 @@
+package com.quickcart.cache;
+
+import com.quickcart.payload.CartResponseDTO;
+import com.quickcart.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user snapshot of the cart view, so repeated cart reads (every page shows the
+ * cart badge) cost no query. Cart mutations invalidate the user's entry.
+ *
+ * A cart also shows product price, discount and stock, which change without the cart
+ * being touched. Each snapshot therefore records the products in it and the
+ * {@link ProductCache} generation it was built under, and is ignored once one of those
+ * products has been evicted since. Changes to other products leave it alone.
+ */
+@Component
+public class CartSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartSnapshotCache.class);
+
+    @Value("${app.cache.carts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.carts.max-size:5000}")
+    private int maxCarts;
+
+    @Autowired
+    private ProductCache productCache;
+
+    private Map<Long, Snapshot> snapshots;
+
+    private record Snapshot(CartResponseDTO cart, List<Long> productIds, long productGeneration) {
+    }
+
+    // Bumped on every invalidation, so a load racing with a mutation is not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > maxCarts;
+            }
+        };
+        logger.info("Cart snapshot cache initialized: enabled={}, maxCarts={}", enabled, maxCarts);
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public CartResponseDTO get(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot snapshot;
+        synchronized (this) {
+            snapshot = snapshots.get(userId);
+        }
+        if (snapshot == null || productCache.changedSince(snapshot.productIds(), snapshot.productGeneration())) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return snapshot.cart();
+    }
+
+    /**
+     * @param loadGeneration {@link #currentGeneration()} taken before the cart was loaded
+     * @param productGeneration {@link ProductCache#currentGeneration()} taken before the cart was loaded
+     */
+    public synchronized void put(Long userId, CartResponseDTO cart, long loadGeneration, long productGeneration) {
+        if (enabled && loadGeneration == generation.get()) {
+            List<Long> productIds = cart.getCartItems().stream().map(item -> item.getProduct().getId()).toList();
+            snapshots.put(userId, new Snapshot(cart, productIds, productGeneration));
+        }
+    }
+
+    // Evicts now and again after commit, like ProductCache.invalidate
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        evict(userId);
+        TransactionUtils.afterCommit(() -> evict(userId));
+    }
+
+    private synchronized void evict(Long userId) {
+        generation.incrementAndGet();
+        snapshots.remove(userId);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", (long) snapshots.size());
+        }
+        stats.put("maxSize", (long) maxCarts);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+}
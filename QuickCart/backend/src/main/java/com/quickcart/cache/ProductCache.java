@@ -0,0 +1,220 @@
+package com.quickcart.cache;
+
+import com.quickcart.payload.ProductResponseDTO;
+import com.quickcart.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, read-through cache of product DTOs in front of the product repository.
+ *
+ * Single products are cached by id and evicted individually whenever that product
+ * changes. Listing pages are cached by their page request. An edit to a product can
+ * move items across pages, so {@link #invalidate} drops every page; stock and image
+ * changes keep a product in place, so {@link #invalidateInPlace} drops only the pages
+ * showing it. Pages sorted by stock are not cached.
+ *
+ * Every eviction stamps the evicted product with a new sequence number. Loads are
+ * tagged with the sequence number current when they started, and a load is not stored
+ * if anything it contains was evicted since, so a stale row can never be re-cached.
+ * {@link #changedSince} lets other caches built from products make the same check.
+ */
+@Component
+public class ProductCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCache.class);
+
+    @Value("${app.cache.products.max-size:2000}")
+    private int maxProducts;
+
+    @Value("${app.cache.products.max-pages:200}")
+    private int maxPages;
+
+    // Stamps are kept per stripe of product ids, so memory stays fixed whatever the catalog size;
+    // a product may now and then look changed because another in its stripe was
+    private static final int STAMP_STRIPES = 4096;
+
+    private Map<Long, ProductResponseDTO> products;
+    private Map<String, CachedPage> pages;
+
+    private record CachedPage(Page<ProductResponseDTO> page, Set<Long> productIds) {
+    }
+
+    private final AtomicLong sequence = new AtomicLong();
+    // Latest eviction stamp of the products in each stripe
+    private final AtomicLongArray evictionStamps = new AtomicLongArray(STAMP_STRIPES);
+    // Stamp of the last clear(), which counts as an eviction of every product
+    private volatile long clearedAt;
+    // Stamp of the last change that can reorder listings
+    private volatile long pagesClearedAt;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong pageHits = new AtomicLong();
+    private final AtomicLong pageMisses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.products = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProductResponseDTO> eldest) {
+                if (size() > maxProducts) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                if (size() > maxPages) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        logger.info("Product cache initialized: maxProducts={}, maxPages={}", maxProducts, maxPages);
+    }
+
+    /**
+     * Returns the generation to pass to {@link #put} / {@link #putPage} /
+     * {@link #changedSince} for a load that is about to start.
+     */
+    public long currentGeneration() {
+        return sequence.get();
+    }
+
+    // True if any of the products was evicted after the given generation was taken
+    public boolean changedSince(Collection<Long> productIds, long generation) {
+        if (clearedAt > generation) {
+            return true;
+        }
+        for (Long productId : productIds) {
+            if (evictionStamps.get(stripe(productId)) > generation) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Optional<ProductResponseDTO> get(Long productId) {
+        ProductResponseDTO dto;
+        synchronized (this) {
+            dto = products.get(productId);
+        }
+        (dto != null ? hits : misses).incrementAndGet();
+        return Optional.ofNullable(dto);
+    }
+
+    public synchronized void put(Long productId, ProductResponseDTO dto, long loadGeneration) {
+        if (!changedSince(List.of(productId), loadGeneration)) {
+            products.put(productId, dto);
+        }
+    }
+
+    public Page<ProductResponseDTO> getPage(Pageable pageable) {
+        CachedPage cached;
+        synchronized (this) {
+            cached = pages.get(pageKey(pageable));
+        }
+        (cached != null ? pageHits : pageMisses).incrementAndGet();
+        return cached != null ? cached.page() : null;
+    }
+
+    public synchronized void putPage(Pageable pageable, Page<ProductResponseDTO> page, long loadGeneration) {
+        // Stock changes do not drop every page, so a stock-ordered page could go stale
+        if (pageable.getSort().getOrderFor("stock") != null || pagesClearedAt > loadGeneration) {
+            return;
+        }
+        Set<Long> productIds = page.getContent().stream().map(ProductResponseDTO::getId).collect(Collectors.toSet());
+        if (!changedSince(productIds, loadGeneration)) {
+            pages.put(pageKey(pageable), new CachedPage(page, productIds));
+        }
+    }
+
+    /**
+     * Evicts the product and every listing page now and again once the current
+     * transaction commits, so a reader cannot re-cache the pre-commit row in between.
+     */
+    public void invalidate(Long productId) {
+        invalidations.incrementAndGet();
+        evict(List.of(productId), true);
+        TransactionUtils.afterCommit(() -> evict(List.of(productId), true));
+    }
+
+    /**
+     * Like {@link #invalidate}, for changes that leave the products where they are in
+     * listings (stock, image renditions): only the pages showing them are dropped.
+     */
+    public void invalidateInPlace(Collection<Long> productIds) {
+        invalidations.addAndGet(productIds.size());
+        evict(productIds, false);
+        TransactionUtils.afterCommit(() -> evict(productIds, false));
+    }
+
+    private synchronized void evict(Collection<Long> productIds, boolean reordersPages) {
+        long stamp = sequence.incrementAndGet();
+        for (Long productId : productIds) {
+            evictionStamps.accumulateAndGet(stripe(productId), stamp, Math::max);
+            products.remove(productId);
+        }
+        if (reordersPages) {
+            pagesClearedAt = stamp;
+            pages.clear();
+        } else {
+            pages.values().removeIf(cached -> !Collections.disjoint(cached.productIds(), productIds));
+        }
+    }
+
+    public synchronized void clear() {
+        long stamp = sequence.incrementAndGet();
+        clearedAt = stamp;
+        pagesClearedAt = stamp;
+        products.clear();
+        pages.clear();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", (long) products.size());
+            stats.put("pageSize", (long) pages.size());
+        }
+        stats.put("maxSize", (long) maxProducts);
+        stats.put("maxPages", (long) maxPages);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("pageHits", pageHits.get());
+        stats.put("pageMisses", pageMisses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private static int stripe(Long productId) {
+        return Math.floorMod(Long.hashCode(productId), STAMP_STRIPES);
+    }
+
+    private String pageKey(Pageable pageable) {
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+}
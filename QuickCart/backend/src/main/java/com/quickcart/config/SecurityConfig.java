@@ -3,6 +3,7 @@ package com.quickcart.config;
 import com.quickcart.security.JwtAuthenticationFilter;
 import com.quickcart.security.JwtTokenProvider;
 import com.quickcart.security.CustomUserDetailsService;
+import com.quickcart.security.UserPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,13 +41,16 @@ public class SecurityConfig {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
         filter.setTokenProvider(tokenProvider);
-        filter.setCustomUserDetailsService(userDetailsService);
+        filter.setUserPrincipalCache(userPrincipalCache);
         return filter;
     }
 
@@ -74,6 +78,7 @@ public class SecurityConfig {
                     "/api/products/seller/{sellerId}",
                     "/api/categories/**",
                     "/api/product-images/**",
+                    "/product-images/**",
                     "/error"
                 ).permitAll()
                 // Seller endpoints
@@ -133,9 +138,10 @@ public class SecurityConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "Idempotency-Key"
         ));
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
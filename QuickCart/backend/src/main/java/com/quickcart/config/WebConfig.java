@@ -1,30 +1,15 @@
 package com.quickcart.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
+// Product images (/api/product-images/**, /product-images/**) are served by ProductImageController
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${file.upload-dir:./uploads/product-images}")
-    private String uploadDir;
-
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadPath = Paths.get(uploadDir);
-        String uploadAbsolutePath = uploadPath.toFile().getAbsolutePath();
-
-        // Configure resource handler for product images
-        registry.addResourceHandler("/api/product-images/**")
-                .addResourceLocations("file:" + uploadAbsolutePath + "/")
-                .setCachePeriod(3600) // Cache for 1 hour
-                .resourceChain(true);
-
         // Configure resource handler for other uploaded files
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:uploads/");
@@ -33,4 +18,4 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/images/**")
                 .addResourceLocations("file:images/");
     }
-} 
\ No newline at end of file
+}
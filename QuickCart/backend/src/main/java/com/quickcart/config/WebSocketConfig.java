@@ -1,7 +1,11 @@
 package com.quickcart.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.messaging.tcp.TcpOperations;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -17,12 +21,11 @@ import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketHandler;
@@ -37,35 +40,116 @@ import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.quickcart.entity.User;
+import com.quickcart.messaging.WebSocketSessionRegistry;
+import com.quickcart.security.JwtClaims;
 import com.quickcart.security.JwtTokenProvider;
+import com.quickcart.security.StompAuthenticationToken;
+import com.quickcart.security.UserPrincipal;
+import com.quickcart.security.UserPrincipalCache;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
 
     @Value("${app.websocket.allowed-origins}")
     private String[] allowedOrigins;
 
+    @Value("${app.websocket.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimitBytes;
+
+    @Value("${app.websocket.send-time-limit-ms:20000}")
+    private int sendTimeLimitMs;
+
+    // simple: in-process broker, one node only (also what tests run against)
+    // relay: external STOMP broker (RabbitMQ, ActiveMQ) shared by every node
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${app.websocket.inbound.pool-size:4}")
+    private int inboundPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.pool-size:4}")
+    private int outboundPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // Replaces the relay's TCP client when present; tests plug in an in-process stand-in
+    @Autowired(required = false)
+    @Qualifier("stompRelayTcpClient")
+    private TcpOperations<byte[]> relayTcpClient;
+
     @Autowired
-    @Qualifier("customUserDetailsService")
-    private UserDetailsService userDetailsService;
+    private UserPrincipalCache userPrincipalCache;
 
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    // Lazy: the broker scheduler is itself created by this configuration
+    @Lazy
+    @Autowired
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        long[] heartbeat = {heartbeatMs, heartbeatMs};
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(relayHost)
+                .setRelayPort(relayPort)
+                .setClientLogin(relayLogin)
+                .setClientPasscode(relayPasscode)
+                .setSystemLogin(relayLogin)
+                .setSystemPasscode(relayPasscode)
+                .setSystemHeartbeatSendInterval(heartbeatMs)
+                .setSystemHeartbeatReceiveInterval(heartbeatMs);
+            if (StringUtils.hasText(relayVirtualHost)) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            if (relayTcpClient != null) {
+                relay.setTcpClient(relayTcpClient);
+            }
+            // Share user sessions between nodes so /user/** sends reach a user on any node
+            relay.setUserDestinationBroadcast("/topic/unresolved-user-destination");
+            relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+            logger.info("WebSocket broker relay: {}:{}", relayHost, relayPort);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(heartbeat)
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -81,13 +165,57 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session whose unsent messages exceed the buffer or time limit is closed
+        // rather than allowed to pile up memory on the server
         registration.setMessageSizeLimit(8192) // 8KB
-                   .setSendBufferSizeLimit(512 * 1024) // 512KB
-                   .setSendTimeLimit(20000); // 20 seconds
+                   .setSendBufferSizeLimit(sendBufferLimitBytes)
+                   .setSendTimeLimit(sendTimeLimitMs)
+                   .addDecoratorFactory(webSocketHandlerDecoratorFactory());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Bounded, so a burst of pushes is rejected at the publisher instead of queueing without limit
+        registration.taskExecutor()
+                   .corePoolSize(outboundPoolSize)
+                   .maxPoolSize(outboundPoolSize)
+                   .queueCapacity(outboundQueueCapacity);
+        // Meters what each session still has to be sent; the registry closes sessions that fall behind
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                String sessionId = pushedToSession(message);
+                if (sessionId != null && message.getPayload() instanceof byte[] payload) {
+                    sessionRegistry.messageQueued(sessionId, payload.length);
+                }
+                return message;
+            }
+
+            @Override
+            public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+                String sessionId = pushedToSession(message);
+                if (sessionId != null && (!sent || ex != null) && message.getPayload() instanceof byte[]) {
+                    sessionRegistry.messageDropped(sessionId);
+                }
+            }
+        });
+    }
+
+    // Only MESSAGE frames are metered: the registry matches them to written MESSAGE frames,
+    // and CONNECTED, RECEIPT or heartbeat frames are not always written one for one
+    private static String pushedToSession(Message<?> message) {
+        if (!SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))) {
+            return null;
+        }
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                   .corePoolSize(inboundPoolSize)
+                   .maxPoolSize(inboundPoolSize)
+                   .queueCapacity(inboundQueueCapacity);
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -101,6 +229,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                             // Validate token and set authentication
                             Authentication auth = validateToken(token);
                             accessor.setUser(auth);
+                            if (auth instanceof StompAuthenticationToken stompAuth) {
+                                sessionRegistry.bindUser(accessor.getSessionId(), stompAuth.getUserId());
+                            }
                         } catch (Exception e) {
                             logger.error("WebSocket authentication failed", e);
                             return null;
@@ -121,15 +252,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     @Override
                     public void afterConnectionEstablished(final WebSocketSession session) throws Exception {
                         String sessionId = session.getId();
-                        sessions.put(sessionId, session);
+                        WebSocketSession metered = sessionRegistry.register(session);
+                        if (metered == null) {
+                            logger.warn("Rejecting WebSocket connection {}: connection limit reached", sessionId);
+                            session.close(CloseStatus.SERVICE_OVERLOAD);
+                            return;
+                        }
                         logger.info("WebSocket connection established: {}", sessionId);
-                        super.afterConnectionEstablished(session);
+                        super.afterConnectionEstablished(metered);
                     }
 
                     @Override
                     public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
                         String sessionId = session.getId();
-                        sessions.remove(sessionId);
+                        sessionRegistry.unregister(sessionId);
                         logger.info("WebSocket connection closed: {} with status: {}", sessionId, closeStatus);
                         super.afterConnectionClosed(session, closeStatus);
                     }
@@ -146,17 +282,19 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private Authentication validateToken(String token) {
         try {
-            if (jwtTokenProvider.validateToken(token)) {
-                String username = jwtTokenProvider.getUsernameFromJWT(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(token);
-                
-                return authentication;
+            JwtClaims claims = jwtTokenProvider.parseAndValidate(token);
+            UserPrincipal userDetails = userPrincipalCache.getPrincipal(
+                    claims.getUserId(), claims.getUsername(), User.Role.valueOf(claims.getRole()));
+            if (userDetails == null) {
+                logger.error("WebSocket token user no longer exists: {}", claims.getUsername());
+                return null;
             }
+
+            // Named by user id so pushes can address /user/{id}/queue/... without a lookup
+            StompAuthenticationToken authentication = new StompAuthenticationToken(userDetails);
+            authentication.setDetails(token);
+
+            return authentication;
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
@@ -0,0 +1,97 @@
+package com.quickcart.controller;
+
+import com.quickcart.cache.CartSnapshotCache;
+import com.quickcart.cache.ProductCache;
+import com.quickcart.inventory.StockReservationLedger;
+import com.quickcart.media.HotImageCache;
+import com.quickcart.media.ProductImageProcessor;
+import com.quickcart.messaging.NotificationDispatcher;
+import com.quickcart.messaging.RealtimePushService;
+import com.quickcart.messaging.WebSocketSessionRegistry;
+import com.quickcart.search.ProductSearchIndex;
+import com.quickcart.security.UserPrincipalCache;
+import com.quickcart.security.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CartSnapshotCache cartSnapshotCache;
+
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private RealtimePushService realtimePushService;
+
+    @Autowired
+    private WebSocketSessionRegistry webSocketSessionRegistry;
+
+    @Autowired
+    private ProductImageProcessor productImageProcessor;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    // Cache counters used to size the in-memory caches
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", productCache.getStats());
+        stats.put("carts", cartSnapshotCache.getStats());
+        stats.put("stockHolds", stockReservationLedger.getStats());
+        stats.put("principals", userPrincipalCache.getStats());
+        stats.put("verifiedTokens", verifiedTokenCache.getStats());
+        stats.put("searchIndex", productSearchIndex.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/notifications")
+    public ResponseEntity<Map<String, Long>> getNotificationStats() {
+        return ResponseEntity.ok(notificationDispatcher.getStats());
+    }
+
+    @GetMapping("/realtime")
+    public ResponseEntity<Map<String, Long>> getRealtimeStats() {
+        return ResponseEntity.ok(realtimePushService.getStats());
+    }
+
+    @GetMapping("/websocket")
+    public ResponseEntity<Map<String, Long>> getWebSocketStats() {
+        return ResponseEntity.ok(webSocketSessionRegistry.getStats());
+    }
+
+    @GetMapping("/images")
+    public ResponseEntity<Map<String, Object>> getImageStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("renditions", productImageProcessor.getStats());
+        stats.put("hotCache", hotImageCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,25 +1,20 @@
-
 package com.quickcart.controller;
 
-import com.quickcart.entity.Cart;
-import com.quickcart.entity.User;
-import com.quickcart.exception.ResourceNotFoundException;
 import com.quickcart.payload.ApiResponse;
+import com.quickcart.payload.CartDeltaDTO;
 import com.quickcart.payload.CartItemRequest;
 import com.quickcart.payload.CartResponseDTO;
-import com.quickcart.repository.UserRepository;
 import com.quickcart.security.UserPrincipal;
 import com.quickcart.service.CartService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/cart")
@@ -29,89 +24,44 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
-    @Autowired
-    private UserRepository userRepository;
-
-    private User getAuthenticatedUser(UserPrincipal currentUserPrincipal) {
-        return userRepository.findById(currentUserPrincipal.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUserPrincipal.getId()));
-    }
-
+    // The principal is already verified, so every endpoint works from its id alone
     @GetMapping
     public ResponseEntity<CartResponseDTO> getCart(@AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
-        User user = getAuthenticatedUser(currentUserPrincipal);
-        Cart cart = cartService.getCartByUserId(user.getId());
-
-        CartResponseDTO responseDTO = new CartResponseDTO();
-
-        responseDTO.setId(cart.getId());
-        responseDTO.setCreatedAt(cart.getCreatedAt());
-        responseDTO.setUpdatedAt(cart.getUpdatedAt());
-
-        cart.getCartItems().forEach(item -> {
-            CartResponseDTO.CartItemDTO itemDTO = new CartResponseDTO.CartItemDTO();
-            itemDTO.setId(item.getId());
-            itemDTO.setQuantity(item.getQuantity());
-            itemDTO.setCreatedAt(item.getCreatedAt());
-            itemDTO.setUpdatedAt(item.getUpdatedAt());
-
-            CartResponseDTO.ProductDTO productDTO = new CartResponseDTO.ProductDTO();
-            productDTO.setId(item.getProduct().getId());
-            productDTO.setName(item.getProduct().getName());
-            productDTO.setDescription(item.getProduct().getDescription());
-            productDTO.setImageUrl(item.getProduct().getImageUrl());
-            productDTO.setCategory(item.getProduct().getCategory());
-            productDTO.setBrand(item.getProduct().getBrand());
-            productDTO.setColor(item.getProduct().getColor());
-            productDTO.setSize(item.getProduct().getSize());
-            productDTO.setStock(item.getProduct().getStock());
-            productDTO.setAvailable(item.getProduct().isAvailable());
-
-
-            BigDecimal price = item.getProduct().getPrice();
-            BigDecimal discountPercentage = item.getProduct().getDiscountPercentage();
-
-            productDTO.setPrice(price != null ? price : BigDecimal.ZERO);
-            productDTO.setDiscountPercentage(discountPercentage != null ? discountPercentage : BigDecimal.ZERO);
-
-            itemDTO.setProduct(productDTO);
-            responseDTO.getCartItems().add(itemDTO);
-        });
-
-        return ResponseEntity.ok(responseDTO);
+        return ResponseEntity.ok(cartService.getCartView(currentUserPrincipal.getId()));
     }
 
+    // Mutations answer with the changed line and new totals rather than the whole cart
 
     @PostMapping("/items")
-    public ResponseEntity<CartResponseDTO> addItemToCart(@Valid @RequestBody CartItemRequest itemRequest, 
+    public ResponseEntity<CartDeltaDTO> addItemToCart(@Valid @RequestBody CartItemRequest itemRequest, 
+                                              @AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
+        return ResponseEntity.ok(cartService.addItemToCart(currentUserPrincipal.getId(), itemRequest));
+    }
+
+    // Many items in one request and one transaction, e.g. reordering a past order; answers
+    // with the whole cart since most of it usually changed
+    @PostMapping("/items:batch")
+    public ResponseEntity<CartResponseDTO> addItemsToCart(@RequestBody List<CartItemRequest> itemRequests,
                                               @AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
-        User user = getAuthenticatedUser(currentUserPrincipal);
-        Cart cart = cartService.addItemToCart(user.getId(), itemRequest);
-        return getCart(currentUserPrincipal);
+        return ResponseEntity.ok(cartService.addItemsToCart(currentUserPrincipal.getId(), itemRequests));
     }
 
     @PutMapping("/items/{itemId}")
-    public ResponseEntity<CartResponseDTO> updateCartItem(@PathVariable Long itemId, 
+    public ResponseEntity<CartDeltaDTO> updateCartItem(@PathVariable Long itemId, 
                                                @RequestParam int quantity, 
                                                @AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
-        User user = getAuthenticatedUser(currentUserPrincipal);
-        Cart cart = cartService.updateItemQuantity(user.getId(), itemId, quantity);
-        return getCart(currentUserPrincipal);
+        return ResponseEntity.ok(cartService.updateItemQuantity(currentUserPrincipal.getId(), itemId, quantity));
     }
 
     @DeleteMapping("/items/{itemId}")
-    public ResponseEntity<CartResponseDTO> removeItemFromCart(@PathVariable Long itemId, 
+    public ResponseEntity<CartDeltaDTO> removeItemFromCart(@PathVariable Long itemId, 
                                                @AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
-        User user = getAuthenticatedUser(currentUserPrincipal);
-        cartService.removeItemFromCart(user.getId(), itemId);
-        // Fetch fresh data after the delete operation
-        return getCart(currentUserPrincipal);
+        return ResponseEntity.ok(cartService.removeItemFromCart(currentUserPrincipal.getId(), itemId));
     }
 
     @DeleteMapping
     public ResponseEntity<ApiResponse> clearCart(@AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
-        User user = getAuthenticatedUser(currentUserPrincipal);
-        cartService.clearCart(user.getId());
+        cartService.clearCart(currentUserPrincipal.getId());
         return ResponseEntity.ok(new ApiResponse(true, "Cart cleared successfully"));
     }
 }
@@ -2,6 +2,9 @@ package com.quickcart.controller;
 
 import com.quickcart.entity.Order;
 import com.quickcart.entity.User;
+import com.quickcart.exception.BadRequestException;
+import com.quickcart.exception.InsufficientStockException;
+import com.quickcart.payload.CheckoutRequest;
 import com.quickcart.payload.OrderDto;
 import com.quickcart.payload.OrderRequest;
 import com.quickcart.payload.OrderMapper;
@@ -13,6 +16,7 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -25,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -34,6 +39,8 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
     private static final int MAX_ORDERS_PER_MINUTE = 5;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
     private final ConcurrentHashMap<String, AtomicInteger> orderAttempts = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, LocalDateTime> lastOrderTime = new ConcurrentHashMap<>();
 
@@ -95,6 +102,60 @@ public class OrderController {
         }
     }
 
+    // Places an order from the server-side cart. Retries that send the same Idempotency-Key
+    // get the original order back (marked Idempotent-Replayed) instead of taking stock twice.
+    @PostMapping("/checkout")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> checkout(@Valid @RequestBody CheckoutRequest checkoutRequest,
+                                      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                      @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new BadRequestException(IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        Long userId = userPrincipal.getId();
+
+        if (idempotencyKey != null) {
+            Optional<Order> previous = orderService.findOrderByIdempotencyKey(userId, idempotencyKey);
+            if (previous.isPresent()) {
+                logger.info("Replaying order {} for idempotency key of user: {}", previous.get().getId(), userPrincipal.getUsername());
+                return replayed(previous.get());
+            }
+        }
+
+        if (!checkRateLimit(userPrincipal.getUsername())) {
+            logger.warn("Rate limit exceeded for user: {}", userPrincipal.getUsername());
+            return ResponseEntity
+                    .status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new ErrorResponse("Too many order attempts. Please try again later."));
+        }
+
+        try {
+            Order order = orderService.checkoutCart(userId, checkoutRequest, idempotencyKey);
+            logger.info("Order created from cart with ID: {}", order.getId());
+            return ResponseEntity.ok(OrderMapper.toDto(order));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent retry with the same key committed first and this attempt rolled back
+            if (idempotencyKey != null) {
+                Optional<Order> winner = orderService.findOrderByIdempotencyKey(userId, idempotencyKey);
+                if (winner.isPresent()) {
+                    return replayed(winner.get());
+                }
+            }
+            throw e;
+        } catch (InsufficientStockException e) {
+            logger.warn("Insufficient stock detected: {}", e.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<OrderDto> replayed(Order order) {
+        return ResponseEntity.ok()
+                .header("Idempotent-Replayed", "true")
+                .body(OrderMapper.toDto(order));
+    }
+
     private boolean checkRateLimit(String username) {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime lastOrder = lastOrderTime.get(username);
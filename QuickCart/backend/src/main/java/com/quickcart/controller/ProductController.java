@@ -5,6 +5,7 @@ import com.quickcart.entity.Product;
 import com.quickcart.entity.User;
 import com.quickcart.exception.ResourceNotFoundException;
 import com.quickcart.payload.ApiResponse;
+import com.quickcart.payload.CursorPage;
 import com.quickcart.payload.ProductRequestDTO;
 import com.quickcart.payload.ProductResponseDTO;
 import com.quickcart.repository.UserRepository;
@@ -53,6 +54,33 @@ public class ProductController {
         return productService.getAllProducts(pageable);
     }
 
+    // Keyset mode, selected by the cursor parameter; send an empty cursor for the first slice
+    @GetMapping(params = "cursor")
+    public CursorPage<ProductResponseDTO> getAllProductsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "10") int pageSize) {
+        return productService.getAllProductsAfter(cursor, sortBy, pageSize);
+    }
+
+    @GetMapping(value = "/search", params = "cursor")
+    public CursorPage<ProductResponseDTO> searchProductsByCursor(
+            @RequestParam(required = false) String searchTerm,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) String color,
+            @RequestParam(required = false) String size,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) BigDecimal minDiscount,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int pageSize) {
+        return productService.searchAndFilterProductsAfter(
+            searchTerm, category, brand, color, size, available, minPrice, maxPrice, minDiscount, sortBy, cursor, pageSize);
+    }
+
     @GetMapping("/search")
     public Page<ProductResponseDTO> searchProducts(
             @RequestParam(required = false) String searchTerm,
@@ -65,6 +93,7 @@ public class ProductController {
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) BigDecimal minDiscount,
             @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "false") boolean includeFacets,
             @PageableDefault(size = 10) Pageable pageable) {
         
         logger.info("Search request received with params: searchTerm='{}', category='{}', brand='{}', color='{}', size='{}', available='{}', minPrice='{}', maxPrice='{}', minDiscount='{}', sortBy='{}', page='{}', size='{}'",
@@ -78,7 +107,7 @@ public class ProductController {
         }
         
         Page<ProductResponseDTO> result = productService.searchAndFilterProducts(
-            searchTerm, category, brand, color, productSize, available, minPrice, maxPrice, minDiscount, sortBy, pageable);
+            searchTerm, category, brand, color, productSize, available, minPrice, maxPrice, minDiscount, sortBy, includeFacets, pageable);
         
         logger.info("Search completed. Found {} products", result.getTotalElements());
         return result;
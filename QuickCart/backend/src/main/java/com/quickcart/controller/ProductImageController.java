@@ -0,0 +1,296 @@
+package com.quickcart.controller;
+
+import com.quickcart.media.HotImageCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Serves stored product images. Where the connector supports it the file is handed to
+ * Tomcat's sendfile, so the kernel copies it straight to the socket. Otherwise hot
+ * small files are written from {@link HotImageCache} mappings and the rest with
+ * {@link FileChannel#transferTo}; both go through the servlet output stream and so
+ * still copy through a heap buffer, but skip opening and reading the file per request.
+ *
+ * Supports single byte ranges, If-None-Match / If-Modified-Since / If-Range, and
+ * precompressed {@code .br} / {@code .gz} siblings of a file when the client accepts
+ * them. Stored names never change content, so responses are cacheable for a year.
+ */
+@RestController
+public class ProductImageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageController.class);
+
+    // Stored names only: hash or UUID, optional rendition suffix, extension
+    private static final Pattern FILENAME = Pattern.compile("[A-Za-z0-9_-]+(\\.[A-Za-z0-9]+)+");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    @Value("${file.upload-dir:./uploads/product-images}")
+    private String uploadDir;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    private Path rootLocation;
+
+    private record ByteRange(long start, long end) {
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private record Variant(Path file, String encoding, String etagSuffix) {
+    }
+
+    @PostConstruct
+    public void init() {
+        rootLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @GetMapping({"/api/product-images/{filename:.+}", "/product-images/{filename:.+}"})
+    public void getImage(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!FILENAME.matcher(filename).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path original = rootLocation.resolve(filename);
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        // Ranges address the identity bytes, so a range request never gets a compressed variant
+        Variant variant = rangeHeader == null ? precompressedVariant(request, original) : null;
+        Path file = variant != null ? variant.file() : original;
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etagFor(filename, variant != null ? variant.etagSuffix() : "");
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(filename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            ByteRange range = parseRange(rangeHeader, size);
+            if (range == ByteRange.UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range != null) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + range.start() + "-" + range.end() + "/" + size);
+                send(request, response, filename, file, range.start(), range.length(), size);
+                return;
+            }
+        }
+
+        if (variant != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.encoding());
+        }
+        send(request, response, variant != null ? null : filename, file, 0, size, size);
+    }
+
+    // Same tag scheme as the content hash in the name: "<name without extension>[-br|-gz]"
+    private static String etagFor(String filename, String suffix) {
+        int dot = filename.indexOf('.');
+        return "\"" + (dot > 0 ? filename.substring(0, dot) : filename) + suffix + "\"";
+    }
+
+    private Variant precompressedVariant(HttpServletRequest request, Path original) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return null;
+        }
+        if (acceptEncoding.contains("br")) {
+            Path brotli = original.resolveSibling(original.getFileName() + ".br");
+            if (Files.isRegularFile(brotli)) {
+                return new Variant(brotli, "br", "-br");
+            }
+        }
+        if (acceptEncoding.contains("gzip")) {
+            Path gzip = original.resolveSibling(original.getFileName() + ".gz");
+            if (Files.isRegularFile(gzip)) {
+                return new Variant(gzip, "gzip", "-gz");
+            }
+        }
+        return null;
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // A stale If-Range means the client's partial copy is useless, so the whole file is sent
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a single "bytes=" range. Returns null for anything it does not handle
+     * (malformed, other units, several ranges), which is answered with the full file.
+     */
+    private static ByteRange parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return ByteRange.UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param cacheKey name to look up in the hot cache, or null to bypass it
+     */
+    private void send(HttpServletRequest request, HttpServletResponse response, String cacheKey,
+                      Path file, long start, long count, long size) throws IOException {
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file from the kernel once this handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        // Without sendfile every byte passes through the output stream's buffer
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        if (cacheKey != null && start == 0 && count == size) {
+            ByteBuffer mapped = hotImageCache.get(cacheKey, file, size);
+            if (mapped != null) {
+                while (mapped.hasRemaining()) {
+                    out.write(mapped);
+                }
+                return;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    logger.warn("Stopped sending {} at byte {} of {}", file.getFileName(), position, start + count);
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+}
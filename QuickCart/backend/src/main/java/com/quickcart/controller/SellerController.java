@@ -6,13 +6,10 @@ import com.quickcart.entity.Order.OrderStatus;
 import com.quickcart.exception.ResourceNotFoundException;
 import com.quickcart.payload.OrderDto;
 import com.quickcart.payload.OrderMapper;
+import com.quickcart.payload.SellerEarningsDto;
 import com.quickcart.repository.UserRepository;
 import com.quickcart.security.UserPrincipal;
 import com.quickcart.service.OrderService;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.temporal.TemporalAdjusters;
-import java.time.DayOfWeek;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -24,8 +21,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/seller")
@@ -84,36 +79,9 @@ public class SellerController {
     }
 
     @GetMapping("/earnings")
-    public ResponseEntity<Map<String, Double>> getSellerEarnings(@AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
+    public ResponseEntity<SellerEarningsDto> getSellerEarnings(@AuthenticationPrincipal UserPrincipal currentUserPrincipal) {
         User seller = getAuthenticatedSeller(currentUserPrincipal);
-
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
-
-        // Start of week (Sunday)
-        LocalDate startOfWeekDate = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
-        LocalDateTime startOfWeek = startOfWeekDate.atStartOfDay();
-        LocalDateTime endOfWeek = startOfDay.plusDays(6).with(LocalTime.MAX);
-
-        // Start of month
-        LocalDate startOfMonthDate = today.with(TemporalAdjusters.firstDayOfMonth());
-        LocalDateTime startOfMonth = startOfMonthDate.atStartOfDay();
-        LocalDateTime endOfMonth = today.with(TemporalAdjusters.lastDayOfMonth()).atTime(LocalTime.MAX);
-
-        // Start of year
-        LocalDate startOfYearDate = today.with(TemporalAdjusters.firstDayOfYear());
-        LocalDateTime startOfYear = startOfYearDate.atStartOfDay();
-        LocalDateTime endOfYear = today.with(TemporalAdjusters.lastDayOfYear()).atTime(LocalTime.MAX);
-
-        Map<String, Double> earnings = Map.of(
-                "daily", orderService.getSellerEarningsBetween(seller, startOfDay, endOfDay),
-                "weekly", orderService.getSellerEarningsBetween(seller, startOfWeek, endOfWeek),
-                "monthly", orderService.getSellerEarningsBetween(seller, startOfMonth, endOfMonth),
-                "yearly", orderService.getSellerEarningsBetween(seller, startOfYear, endOfYear)
-        );
-
-        return ResponseEntity.ok(earnings);
+        return ResponseEntity.ok(orderService.getSellerEarnings(seller));
     }
 
 
@@ -0,0 +1,27 @@
+package com.quickcart.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker for a one-off data backfill. The row exists once any node has tried the
+ * backfill; {@code appliedAt} is set in the same transaction that applied it.
+ */
+@Entity
+@Table(name = "data_migrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataMigration {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+}
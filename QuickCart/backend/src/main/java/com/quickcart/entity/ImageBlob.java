@@ -0,0 +1,29 @@
+package com.quickcart.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * An uploaded image file, named by the SHA-256 of its bytes, and how many products
+ * use it. Identical uploads share one file; the file and its renditions are deleted
+ * when the last product lets go of it.
+ */
+@Entity
+@Table(name = "image_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+
+    @Id
+    @Column(length = 80)
+    private String filename; // <sha-256 hex>.<ext>
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+}
@@ -15,7 +15,9 @@ import java.util.HashSet;
 import java.util.Objects;
 
 @Entity
-@Table(name = "orders")
+// A client retry carries the same idempotency key, so one key yields at most one order per user
+@Table(name = "orders",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +49,10 @@ public class Order {
     @Column(nullable = false)
     private PaymentMethod paymentMethod;
 
+    // From the Idempotency-Key header of a cart checkout; null for orders placed without one
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
     @CreationTimestamp
     @Column(name = "order_date", nullable = false, updatable = false)
     private LocalDateTime orderDate;
@@ -41,6 +41,10 @@ public class Product {
 
     private String imageUrl;
 
+    // Set once the thumb/card/full renditions of imageUrl have been written
+    @Column(nullable = false)
+    private boolean imageRenditionsReady = false;
+
     @Column(precision = 5, scale = 2) // e.g., 10.00 for 10%
     private BigDecimal discountPercentage;
 
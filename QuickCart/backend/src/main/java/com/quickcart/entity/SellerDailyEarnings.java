@@ -0,0 +1,36 @@
+package com.quickcart.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Delivered-order revenue per seller per order day. Adjusted whenever an order moves
+ * into or out of DELIVERED, so the earnings dashboard sums a handful of rows instead
+ * of rescanning the seller's order items.
+ */
+@Entity
+@Table(name = "seller_daily_earnings",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"seller_id", "earnings_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerDailyEarnings {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    @Column(name = "earnings_date", nullable = false)
+    private LocalDate earningsDate;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+}
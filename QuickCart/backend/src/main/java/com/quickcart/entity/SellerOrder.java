@@ -0,0 +1,51 @@
+package com.quickcart.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per (seller, order) the seller has items in. Written when the order is
+ * created and kept in step with the order status, so a seller's orders can be paged
+ * from this table alone instead of a DISTINCT over orders, items and products.
+ */
+@Entity
+@Table(name = "seller_orders",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"seller_id", "order_id"}),
+        indexes = {
+                @Index(name = "idx_seller_orders_seller_date", columnList = "seller_id, order_date"),
+                @Index(name = "idx_seller_orders_seller_status_date", columnList = "seller_id, status, order_date"),
+                @Index(name = "idx_seller_orders_order", columnList = "order_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
+    public SellerOrder(Long sellerId, Order order) {
+        this.sellerId = sellerId;
+        this.orderId = order.getId();
+        this.status = order.getStatus();
+        this.orderDate = order.getOrderDate();
+    }
+}
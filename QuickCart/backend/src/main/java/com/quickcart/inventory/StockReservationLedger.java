@@ -0,0 +1,224 @@
+package com.quickcart.inventory;
+
+import com.quickcart.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process ledger of short-lived stock holds taken when a user puts a product in
+ * their cart. A hold does not touch the products table; it only lowers the stock
+ * other users can claim until it is converted into a real decrement at checkout,
+ * released, or expires.
+ *
+ * Holds live in this JVM only, so with several nodes each node enforces its own
+ * holds; the guarded decrement at checkout remains the source of truth.
+ *
+ * A hold is taken before the cart row is written, so competing carts see it at once.
+ * If the surrounding transaction rolls back, every hold or release it made is put back
+ * to what it was before, unless the user has changed that hold again in the meantime.
+ */
+@Component
+public class StockReservationLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationLedger.class);
+
+    @Value("${app.stock.reservation-ttl-ms:900000}")
+    private long holdTtlMs;
+
+    // productId -> (userId -> hold)
+    private final ConcurrentHashMap<Long, Map<Long, Hold>> holdsByProduct = new ConcurrentHashMap<>();
+
+    // userId -> products they hold, so releasing a whole cart does not walk every product.
+    // Kept in step inside the per-product compute calls that change the holds.
+    private final ConcurrentHashMap<Long, Set<Long>> productsByUser = new ConcurrentHashMap<>();
+
+    // Products whose available stock moved since the last drainChangedProducts()
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+
+    private record Hold(int quantity, long expiresAt) {
+        boolean isActive(long now) {
+            return expiresAt > now;
+        }
+    }
+
+    /**
+     * Sets the user's hold on a product to {@code quantity}, replacing any previous
+     * hold of theirs, provided stock minus everyone else's active holds covers it.
+     *
+     * @return false when the quantity cannot be held
+     */
+    public boolean hold(Long productId, Long userId, int quantity, int stock) {
+        long now = System.currentTimeMillis();
+        Hold hold = new Hold(quantity, now + holdTtlMs);
+        boolean[] placed = {false};
+        Hold[] previous = {null};
+        holdsByProduct.compute(productId, (id, holds) -> {
+            Map<Long, Hold> updated = holds != null ? holds : new ConcurrentHashMap<>();
+            if (stock - heldByOthers(updated, userId, now) >= quantity) {
+                previous[0] = updated.put(userId, hold);
+                indexHold(userId, productId);
+                placed[0] = true;
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+        if (placed[0]) {
+            changedProducts.add(productId);
+            TransactionUtils.afterRollback(() -> restore(productId, userId, hold, previous[0]));
+        } else {
+            logger.debug("Could not hold {} of product {} for user {}", quantity, productId, userId);
+        }
+        return placed[0];
+    }
+
+    public void release(Long productId, Long userId) {
+        Hold[] removed = {null};
+        holdsByProduct.computeIfPresent(productId, (id, holds) -> {
+            removed[0] = holds.remove(userId);
+            if (removed[0] != null) {
+                unindexHold(userId, productId);
+            }
+            return holds.isEmpty() ? null : holds;
+        });
+        if (removed[0] != null) {
+            changedProducts.add(productId);
+            TransactionUtils.afterRollback(() -> restore(productId, userId, null, removed[0]));
+        }
+    }
+
+    public void releaseAll(Long userId) {
+        Set<Long> productIds = productsByUser.get(userId);
+        if (productIds != null) {
+            List.copyOf(productIds).forEach(productId -> release(productId, userId));
+        }
+    }
+
+    /**
+     * Quantity of the product held by users other than {@code userId}; this is what
+     * must stay in stock after that user's order is taken.
+     */
+    public int heldByOthers(Long productId, Long userId) {
+        Map<Long, Hold> holds = holdsByProduct.get(productId);
+        return holds == null ? 0 : heldByOthers(holds, userId, System.currentTimeMillis());
+    }
+
+    // Stock left for new holds or orders once all active holds are subtracted
+    public int availableStock(Long productId, Integer stock) {
+        if (stock == null) {
+            return 0;
+        }
+        Map<Long, Hold> holds = holdsByProduct.get(productId);
+        if (holds == null) {
+            return stock;
+        }
+        return Math.max(0, stock - heldByOthers(holds, null, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.reservation-sweep-ms:30000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        int[] expired = {0};
+        holdsByProduct.keySet().forEach(productId ->
+            holdsByProduct.computeIfPresent(productId, (id, holds) -> {
+                int before = holds.size();
+                holds.entrySet().removeIf(entry -> {
+                    if (entry.getValue().isActive(now)) {
+                        return false;
+                    }
+                    unindexHold(entry.getKey(), productId);
+                    return true;
+                });
+                if (holds.size() < before) {
+                    changedProducts.add(productId);
+                }
+                expired[0] += before - holds.size();
+                return holds.isEmpty() ? null : holds;
+            }));
+        if (expired[0] > 0) {
+            logger.debug("Expired {} stock holds", expired[0]);
+        }
+    }
+
+    // Returns and forgets the products whose holds changed, for pushing stock updates
+    public List<Long> drainChangedProducts() {
+        List<Long> drained = new ArrayList<>();
+        for (Long productId : changedProducts) {
+            if (changedProducts.remove(productId)) {
+                drained.add(productId);
+            }
+        }
+        return drained;
+    }
+
+    public Map<String, Long> getStats() {
+        long now = System.currentTimeMillis();
+        long activeHolds = 0;
+        long heldUnits = 0;
+        for (Map<Long, Hold> holds : holdsByProduct.values()) {
+            for (Hold hold : holds.values()) {
+                if (hold.isActive(now)) {
+                    activeHolds++;
+                    heldUnits += hold.quantity();
+                }
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("products", (long) holdsByProduct.size());
+        stats.put("users", (long) productsByUser.size());
+        stats.put("activeHolds", activeHolds);
+        stats.put("heldUnits", heldUnits);
+        return stats;
+    }
+
+    // Undoes a rolled-back hold or release: swaps `current` back for `previous` if it is still what the user has
+    private void restore(Long productId, Long userId, Hold current, Hold previous) {
+        holdsByProduct.compute(productId, (id, holds) -> {
+            Map<Long, Hold> updated = holds != null ? holds : new ConcurrentHashMap<>();
+            if (updated.get(userId) == current) {
+                if (previous != null) {
+                    updated.put(userId, previous);
+                    indexHold(userId, productId);
+                } else {
+                    updated.remove(userId);
+                    unindexHold(userId, productId);
+                }
+                changedProducts.add(productId);
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private void indexHold(Long userId, Long productId) {
+        productsByUser.compute(userId, (id, productIds) -> {
+            Set<Long> updated = productIds != null ? productIds : ConcurrentHashMap.newKeySet();
+            updated.add(productId);
+            return updated;
+        });
+    }
+
+    private void unindexHold(Long userId, Long productId) {
+        productsByUser.computeIfPresent(userId, (id, productIds) -> {
+            productIds.remove(productId);
+            return productIds.isEmpty() ? null : productIds;
+        });
+    }
+
+    private int heldByOthers(Map<Long, Hold> holds, Long userId, long now) {
+        int held = 0;
+        for (Map.Entry<Long, Hold> entry : holds.entrySet()) {
+            if (!entry.getKey().equals(userId) && entry.getValue().isActive(now)) {
+                held += entry.getValue().quantity();
+            }
+        }
+        return held;
+    }
+}
@@ -0,0 +1,104 @@
+package com.quickcart.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small LRU of memory-mapped image files for the most requested small images, mostly
+ * thumbnails on listing pages. A file is mapped once it has been requested
+ * {@code promote-after} times; mapped files are served straight from the page cache
+ * without opening the file per request. Only used when the connector cannot sendfile.
+ *
+ * Stored images never change under a name, so a mapping stays valid until the file
+ * is deleted, which evicts it.
+ */
+@Component
+public class HotImageCache {
+
+    @Value("${app.images.hot-cache.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${app.images.hot-cache.max-file-bytes:262144}")
+    private long maxFileBytes;
+
+    @Value("${app.images.hot-cache.promote-after:3}")
+    private int promoteAfter;
+
+    private final Map<String, MappedByteBuffer> mapped = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MappedByteBuffer> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // Request counts of files not mapped yet; cleared when it grows past a few times the cache size
+    private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns a read-only view of the mapped file, mapping it now if it has become
+     * hot, or null when it should be streamed from disk instead.
+     */
+    public ByteBuffer get(String filename, Path file, long size) throws IOException {
+        MappedByteBuffer buffer;
+        synchronized (mapped) {
+            buffer = mapped.get(filename);
+        }
+        if (buffer != null) {
+            hits.incrementAndGet();
+            return buffer.asReadOnlyBuffer();
+        }
+        misses.incrementAndGet();
+        if (size > maxFileBytes || countRequest(filename) < promoteAfter) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        synchronized (mapped) {
+            mapped.put(filename, buffer);
+        }
+        requestCounts.remove(filename);
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public void evict(String filename) {
+        synchronized (mapped) {
+            mapped.remove(filename);
+        }
+        requestCounts.remove(filename);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (mapped) {
+            stats.put("mapped", (long) mapped.size());
+        }
+        stats.put("maxEntries", (long) maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private int countRequest(String filename) {
+        if (requestCounts.size() > maxEntries * 4) {
+            requestCounts.clear();
+        }
+        return requestCounts.computeIfAbsent(filename, name -> new AtomicInteger()).incrementAndGet();
+    }
+}
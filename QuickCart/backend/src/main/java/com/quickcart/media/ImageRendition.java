@@ -0,0 +1,37 @@
+package com.quickcart.media;
+
+/**
+ * Sizes an uploaded product image is re-encoded to. Each rendition is a JPEG stored
+ * next to the original as {@code <original name without extension>__<suffix>.jpg}.
+ */
+public enum ImageRendition {
+    THUMB("thumb", 160, 0.75f),
+    CARD("card", 480, 0.80f),
+    FULL("full", 1600, 0.85f);
+
+    private final String suffix;
+    private final int maxEdge;
+    private final float quality;
+
+    ImageRendition(String suffix, int maxEdge, float quality) {
+        this.suffix = suffix;
+        this.maxEdge = maxEdge;
+        this.quality = quality;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    // "api/product-images/3f2a.png" -> "api/product-images/3f2a__thumb.jpg"
+    public String nameFor(String original) {
+        int slash = original.lastIndexOf('/');
+        int dot = original.lastIndexOf('.');
+        String base = dot > slash ? original.substring(0, dot) : original;
+        return base + "__" + suffix + ".jpg";
+    }
+}
@@ -0,0 +1,326 @@
+package com.quickcart.media;
+
+import com.quickcart.cache.ProductCache;
+import com.quickcart.exception.BadRequestException;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes uploaded product images once and writes the {@link ImageRendition}s next to
+ * the original, off the request thread. Until a product's renditions exist its DTO
+ * keeps pointing at the original upload; once they are written the product is marked
+ * and its cache entry evicted.
+ *
+ * Work runs on a small bounded pool. Jobs that do not fit, or were lost to a restart,
+ * are picked up by a periodic scan for products whose renditions are missing, which
+ * also converts images uploaded before renditions existed.
+ */
+@Component
+public class ProductImageProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageProcessor.class);
+
+    @Value("${file.upload-dir:./uploads/product-images}")
+    private String uploadDir;
+
+    @Value("${app.images.workers:2}")
+    private int workerCount;
+
+    @Value("${app.images.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.images.rescan-batch-size:50}")
+    private int rescanBatchSize;
+
+    // Decoded size is width x height x 4 bytes, whatever the file size
+    @Value("${app.images.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    private Path rootLocation;
+    private ThreadPoolExecutor executor;
+    private volatile long rescanAfterId;
+
+    // Products queued or being encoded, and ones whose image could not be decoded
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<Long> failedProducts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        rootLocation = Paths.get(uploadDir);
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-processor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ImageIO.setUseCache(false);
+        logger.info("Image processor started: workers={}, queueCapacity={}", workerCount, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * File extension for the bytes' image format, or null when ImageIO cannot read
+     * them. Only the header is read, so this is cheap enough for the upload request.
+     *
+     * @throws BadRequestException if the image has more than {@code app.images.max-pixels} pixels
+     */
+    public String detectExtension(byte[] bytes) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if (!withinPixelBudget(reader)) {
+                    throw new BadRequestException("Image dimensions " + reader.getWidth(0) + "x" + reader.getHeight(0)
+                            + " exceed the limit of " + maxPixels + " pixels");
+                }
+                String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                return "." + ("jpeg".equals(format) ? "jpg" : format);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Queues rendition encoding for the product's image once the current transaction commits
+    public void processAfterCommit(Long productId, String imageUrl) {
+        failedProducts.remove(productId);
+        TransactionUtils.afterCommit(() -> submit(productId, imageUrl));
+    }
+
+    // Removes the renditions of a stored image; the original is the caller's to delete
+    public void deleteRenditions(String filename) {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            try {
+                Files.deleteIfExists(rootLocation.resolve(rendition.nameFor(filename)));
+            } catch (IOException e) {
+                logger.warn("Failed to delete rendition {} of {}: {}", rendition, filename, e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.images.rescan-ms:60000}", initialDelayString = "${app.images.rescan-ms:60000}")
+    public void rescanPending() {
+        // Walks the pending products in id order across runs, so failures cannot starve the rest
+        List<ProductRepository.PendingImage> batch =
+                productRepository.findPendingImageRenditions(rescanAfterId, PageRequest.of(0, rescanBatchSize));
+        for (ProductRepository.PendingImage pending : batch) {
+            if (!failedProducts.contains(pending.getId())) {
+                submit(pending.getId(), pending.getImageUrl());
+            }
+        }
+        rescanAfterId = batch.isEmpty() ? 0L : batch.get(batch.size() - 1).getId();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queued", (long) executor.getQueue().size());
+        stats.put("queueCapacity", (long) queueCapacity);
+        stats.put("inFlight", (long) inFlight.size());
+        stats.put("processed", processed.get());
+        stats.put("deferred", deferred.get());
+        stats.put("failed", failed.get());
+        stats.put("bytesIn", bytesIn.get());
+        stats.put("bytesOut", bytesOut.get());
+        return stats;
+    }
+
+    private void submit(Long productId, String imageUrl) {
+        if (imageUrl == null || imageUrl.startsWith("http") || !inFlight.add(productId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(productId, imageUrl);
+                } finally {
+                    inFlight.remove(productId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Left for rescanPending
+            inFlight.remove(productId);
+            deferred.incrementAndGet();
+        }
+    }
+
+    private void process(Long productId, String imageUrl) {
+        String filename = Paths.get(imageUrl).getFileName().toString();
+        Path source = rootLocation.resolve(filename);
+        try {
+            // Identical uploads share a file, so another product may already have produced these
+            if (renditionsExist(filename)) {
+                markReady(productId, imageUrl);
+                return;
+            }
+
+            BufferedImage original = decode(source);
+            bytesIn.addAndGet(Files.size(source));
+
+            for (ImageRendition rendition : ImageRendition.values()) {
+                Path target = rootLocation.resolve(rendition.nameFor(filename));
+                // Products sharing a file can be encoding it at the same time; each job gets its own temp file
+                Path temp = Files.createTempFile(rootLocation, target.getFileName() + ".", ".tmp");
+                try {
+                    writeJpeg(scale(original, rendition.getMaxEdge()), rendition.getQuality(), temp);
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                bytesOut.addAndGet(Files.size(target));
+            }
+
+            markReady(productId, imageUrl);
+            processed.incrementAndGet();
+            logger.debug("Wrote image renditions for product {} from {}", productId, filename);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            failedProducts.add(productId);
+            logger.error("Failed to process image {} of product {}: {}", filename, productId, e.getMessage());
+        }
+    }
+
+    // Reads the dimensions from the header and refuses to decode anything over the pixel budget
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("no ImageIO reader for " + source.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if (!withinPixelBudget(reader)) {
+                    throw new IOException("image is " + reader.getWidth(0) + "x" + reader.getHeight(0)
+                            + ", over the limit of " + maxPixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private boolean withinPixelBudget(ImageReader reader) throws IOException {
+        return (long) reader.getWidth(0) * reader.getHeight(0) <= maxPixels;
+    }
+
+    private boolean renditionsExist(String filename) {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            if (!Files.exists(rootLocation.resolve(rendition.nameFor(filename)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A product whose image was replaced meanwhile is not marked; its new image has its own job
+    private void markReady(Long productId, String imageUrl) {
+        if (productRepository.markImageRenditionsReady(productId, imageUrl) > 0) {
+            productCache.invalidateInPlace(List.of(productId));
+        }
+    }
+
+    // Fits the image within maxEdge on its longer side, never enlarging; alpha is flattened onto white
+    private BufferedImage scale(BufferedImage source, int maxEdge) {
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        // Halve in steps first; a single bilinear pass from far above the target looks grainy
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, width, height);
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, float quality, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
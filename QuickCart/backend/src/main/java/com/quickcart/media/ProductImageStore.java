@@ -0,0 +1,166 @@
+package com.quickcart.media;
+
+import com.quickcart.exception.BadRequestException;
+import com.quickcart.repository.ImageBlobRepository;
+import com.quickcart.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Content-addressed store for product images. An upload is named by the SHA-256 of
+ * its bytes plus an extension derived from its actual format, so the same photo
+ * uploaded for many products is kept once; {@code image_blobs} counts the products
+ * using each file.
+ *
+ * Both methods must run inside the caller's transaction: {@link #store} takes the
+ * reference before making sure the file exists, and {@link #release} only drops the
+ * reference. Files are deleted after the transaction commits, so a rolled-back delete
+ * never takes away an image other products still use. The deletion locks the blob row
+ * and skips the file if an upload of the same bytes has brought the row back, so a
+ * concurrent upload either waits and rewrites the file or keeps it alive.
+ */
+@Component
+public class ProductImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageStore.class);
+
+    public static final String URL_PREFIX = "api/product-images/";
+
+    @Value("${file.upload-dir:./uploads/product-images}")
+    private String uploadDir;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private ProductImageProcessor productImageProcessor;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Path rootLocation;
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rootLocation = Paths.get(uploadDir);
+        try {
+            if (!Files.exists(rootLocation)) {
+                logger.info("Creating upload directory at: {}", rootLocation.toAbsolutePath());
+                Files.createDirectories(rootLocation);
+            }
+            logger.info("Upload directory initialized at: {}", rootLocation.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Could not initialize storage location: {}", e.getMessage());
+            throw new RuntimeException("Could not initialize storage location", e);
+        }
+    }
+
+    /**
+     * Stores the upload (or reuses an identical stored file) and returns its URL, or
+     * null for an empty upload.
+     */
+    public String store(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            logger.warn("Attempted to store empty file");
+            return null;
+        }
+
+        String originalFilename = StringUtils.cleanPath(String.valueOf(file.getOriginalFilename()));
+        try {
+            byte[] bytes = file.getBytes();
+            // Renditions are encoded later by ProductImageProcessor; reject what it could not decode
+            String extension = productImageProcessor.detectExtension(bytes);
+            if (extension == null) {
+                throw new BadRequestException("Unsupported image format: " + originalFilename);
+            }
+
+            String filename = sha256Hex(bytes) + extension;
+            imageBlobRepository.acquire(filename, bytes.length);
+
+            Path target = rootLocation.resolve(filename);
+            if (!Files.exists(target)) {
+                Path temp = rootLocation.resolve(filename + "." + UUID.randomUUID() + ".tmp");
+                Files.write(temp, bytes);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("Stored image {} as {}", originalFilename, filename);
+            } else {
+                logger.info("Image {} already stored as {}", originalFilename, filename);
+            }
+            return URL_PREFIX + filename;
+        } catch (IOException e) {
+            logger.error("Failed to store file {}: {}", originalFilename, e.getMessage());
+            throw new RuntimeException("Failed to store file " + originalFilename, e);
+        }
+    }
+
+    // Drops one product's reference; the file and its renditions go with the last one, after commit
+    public void release(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank() || imageUrl.startsWith("http")) {
+            return;
+        }
+        String filename = Paths.get(imageUrl).getFileName().toString();
+        boolean untracked = imageBlobRepository.release(filename) == 0;
+        if (untracked || imageBlobRepository.deleteIfUnreferenced(filename) > 0) {
+            TransactionUtils.afterCommit(() -> deleteIfStillUnreferenced(filename));
+        }
+    }
+
+    // The caller's transaction is over by now, so the lock needs a transaction of its own
+    private void deleteIfStillUnreferenced(String filename) {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (imageBlobRepository.lockByFilename(filename).isEmpty()) {
+                    delete(filename);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to delete unreferenced image {}: {}", filename, e.getMessage());
+        }
+    }
+
+    private void delete(String filename) {
+        try {
+            Files.deleteIfExists(rootLocation.resolve(filename));
+        } catch (IOException e) {
+            logger.warn("Failed to delete image {}: {}", filename, e.getMessage());
+        }
+        productImageProcessor.deleteRenditions(filename);
+        hotImageCache.evict(filename);
+        for (ImageRendition rendition : ImageRendition.values()) {
+            hotImageCache.evict(rendition.nameFor(filename));
+        }
+    }
+
+    private static String sha256Hex(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.quickcart.messaging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes notifications off the request path. Events are queued only once the
+ * publishing transaction has committed, so a rolled-back order never notifies anyone
+ * and the order's locks are not held while notification rows are inserted.
+ *
+ * Workers drain the queue in JDBC batches, each committed in a transaction of its own
+ * (the pool does not auto-commit). A batch that fails for a transient reason, such as a
+ * lost connection or a lock timeout, is retried a bounded number of times with a
+ * growing pause, so a short database outage does not lose notifications. When the queue is full the publishing thread writes its own
+ * notifications rather than dropping them.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, title, message, type, is_read, created_at) VALUES (?, ?, ?, ?, false, ?)";
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    @Value("${app.notifications.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.notifications.workers:2}")
+    private int workerCount;
+
+    @Value("${app.notifications.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.notifications.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    @Value("${app.notifications.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+    private BlockingQueue<NotificationMessage> queue;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong writtenInline = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        // Inline writes run in the publisher's after-commit callback, so they must not join its transaction
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "notification-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainLoop);
+        }
+        logger.info("Notification dispatcher started: workers={}, queueCapacity={}, batchSize={}",
+                workerCount, queueCapacity, batchSize);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsRequested(NotificationsRequestedEvent event) {
+        List<NotificationMessage> overflow = new ArrayList<>();
+        for (NotificationMessage notification : event.notifications()) {
+            if (!running || !queue.offer(notification)) {
+                overflow.add(notification);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            logger.warn("Notification queue full, writing {} notifications inline", overflow.size());
+            writeBatch(overflow);
+            writtenInline.addAndGet(overflow.size());
+        }
+    }
+
+    /**
+     * Stops taking new work and lets the workers finish the batch in hand, retries
+     * included, before the rest of the queue is written from this thread.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            logger.warn("Notification writers still busy after {} ms, flushing the queue alongside them",
+                    shutdownTimeoutMs);
+        }
+
+        // Flush whatever the workers did not get to
+        List<NotificationMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queued", (long) queue.size());
+        stats.put("queueCapacity", (long) queueCapacity);
+        stats.put("written", written.get());
+        stats.put("writtenInline", writtenInline.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<NotificationMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                // Poll rather than take, so the loop notices stop() without an interrupt
+                NotificationMessage first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<NotificationMessage> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insert(batch);
+                written.addAndGet(batch.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    failed.addAndGet(batch.size());
+                    logger.error("Failed to write {} notifications after {} attempts: {}",
+                            batch.size(), attempt, e.getMessage());
+                    return;
+                }
+                logger.warn("Writing {} notifications failed (attempt {} of {}), retrying: {}",
+                        batch.size(), attempt, maxAttempts, e.getMessage());
+                retried.addAndGet(batch.size());
+                if (!pause(retryBackoffMs << (attempt - 1))) {
+                    failed.addAndGet(batch.size());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void insert(List<NotificationMessage> batch) {
+        requiresNew.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, notification) -> {
+                    ps.setLong(1, notification.getUserId());
+                    ps.setString(2, notification.getTitle());
+                    ps.setString(3, notification.getMessage());
+                    ps.setString(4, notification.getType());
+                    ps.setTimestamp(5, Timestamp.valueOf(notification.getCreatedAt()));
+                }));
+    }
+
+    // A constraint violation or bad SQL fails the same way every time, so it is not retried
+    private static boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.quickcart.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// A notification row to be written; carries ids only so it outlives the publishing transaction
+@Getter
+@AllArgsConstructor
+public class NotificationMessage {
+    private final Long userId;
+    private final String title;
+    private final String message;
+    private final String type;
+    private final LocalDateTime createdAt;
+}
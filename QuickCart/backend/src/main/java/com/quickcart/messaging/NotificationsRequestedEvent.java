@@ -0,0 +1,7 @@
+package com.quickcart.messaging;
+
+import java.util.List;
+
+// Published by NotificationServiceImpl; picked up by NotificationDispatcher after commit
+public record NotificationsRequestedEvent(List<NotificationMessage> notifications) {
+}
@@ -0,0 +1,180 @@
+package com.quickcart.messaging;
+
+import com.quickcart.inventory.StockReservationLedger;
+import com.quickcart.payload.ProductStockUpdate;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes notifications and stock changes to STOMP clients so they do not have to poll.
+ *
+ * Nothing is sent from the request thread. Notifications are collected per user and
+ * stock changes per product, and a periodic flush sends one frame per user with
+ * everything gathered since the last flush, and one frame per product carrying only
+ * its latest stock. A user's pending list is capped; anything beyond it is dropped
+ * from the push (it is still stored and can be fetched over REST).
+ *
+ * Users are addressed by id: STOMP sessions are named by user id, see
+ * {@link com.quickcart.security.StompAuthenticationToken}.
+ */
+@Component
+public class RealtimePushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealtimePushService.class);
+
+    public static final String NOTIFICATIONS_DESTINATION = "/queue/notifications";
+    public static final String PRODUCT_TOPIC_PREFIX = "/topic/products/";
+
+    private static final int STOCK_QUERY_CHUNK = 500;
+
+    @Value("${app.realtime.max-pending-per-user:50}")
+    private int maxPendingPerUser;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Autowired
+    private SimpUserRegistry simpUserRegistry;
+
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    private final ConcurrentHashMap<Long, Deque<NotificationMessage>> pendingNotifications = new ConcurrentHashMap<>();
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong notificationFrames = new AtomicLong();
+    private final AtomicLong notificationsPushed = new AtomicLong();
+    private final AtomicLong notificationsDropped = new AtomicLong();
+    private final AtomicLong stockFrames = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsRequested(NotificationsRequestedEvent event) {
+        for (NotificationMessage notification : event.notifications()) {
+            // Offline users get nothing pushed; the stored row is what they will see
+            if (!isConnected(notification.getUserId())) {
+                continue;
+            }
+            pendingNotifications.compute(notification.getUserId(), (userId, pending) -> {
+                Deque<NotificationMessage> queue = pending != null ? pending : new ArrayDeque<>();
+                queue.addLast(notification);
+                while (queue.size() > maxPendingPerUser) {
+                    queue.removeFirst();
+                    notificationsDropped.incrementAndGet();
+                }
+                return queue;
+            });
+        }
+    }
+
+    // Marks products for a stock push once the current transaction commits
+    public void productsChanged(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        TransactionUtils.afterCommit(() -> changedProducts.addAll(ids));
+    }
+
+    @Scheduled(fixedDelayString = "${app.realtime.flush-ms:250}")
+    public void flush() {
+        flushNotifications();
+        flushStockUpdates();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("connectedUsers", (long) simpUserRegistry.getUserCount());
+        stats.put("pendingUsers", (long) pendingNotifications.size());
+        stats.put("pendingProducts", (long) changedProducts.size());
+        stats.put("notificationFrames", notificationFrames.get());
+        stats.put("notificationsPushed", notificationsPushed.get());
+        stats.put("notificationsDropped", notificationsDropped.get());
+        stats.put("stockFrames", stockFrames.get());
+        stats.put("sendFailures", sendFailures.get());
+        return stats;
+    }
+
+    // With one node the local session index is complete and needs no lookup by name;
+    // in relay mode only the shared user registry knows about the other nodes' sessions
+    private boolean isConnected(Long userId) {
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            return simpUserRegistry.getUser(String.valueOf(userId)) != null;
+        }
+        return !sessionRegistry.getSessionIds(userId).isEmpty();
+    }
+
+    private void flushNotifications() {
+        for (Long userId : pendingNotifications.keySet()) {
+            Deque<NotificationMessage> pending = pendingNotifications.remove(userId);
+            if (pending == null || pending.isEmpty()) {
+                continue;
+            }
+            try {
+                messagingTemplate.convertAndSendToUser(String.valueOf(userId), NOTIFICATIONS_DESTINATION,
+                        new ArrayList<>(pending));
+                notificationFrames.incrementAndGet();
+                notificationsPushed.addAndGet(pending.size());
+            } catch (Exception e) {
+                sendFailures.incrementAndGet();
+                logger.warn("Failed to push {} notifications to user {}: {}", pending.size(), userId, e.getMessage());
+            }
+        }
+    }
+
+    private void flushStockUpdates() {
+        Set<Long> productIds = new LinkedHashSet<>(stockReservationLedger.drainChangedProducts());
+        for (Long productId : changedProducts) {
+            if (changedProducts.remove(productId)) {
+                productIds.add(productId);
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += STOCK_QUERY_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + STOCK_QUERY_CHUNK, ids.size()));
+            // Deleted products are simply not returned, so nothing is pushed for them
+            for (ProductStockUpdate update : productRepository.findStockUpdates(chunk)) {
+                update.setAvailableStock(stockReservationLedger.availableStock(update.getProductId(), update.getStock()));
+                try {
+                    messagingTemplate.convertAndSend(PRODUCT_TOPIC_PREFIX + update.getProductId(), update);
+                    stockFrames.incrementAndGet();
+                } catch (Exception e) {
+                    sendFailures.incrementAndGet();
+                    logger.warn("Failed to push stock update for product {}: {}", update.getProductId(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.quickcart.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks open WebSocket sessions, indexed by session id and by the user id bound at
+ * STOMP CONNECT, and meters what is waiting to be written to each of them.
+ *
+ * A pushed message counts as pending from the moment it enters the client outbound
+ * channel until the transport has written its MESSAGE frame, so the figure covers the
+ * outbound queue and the per-session send buffer together. Only MESSAGE frames are
+ * metered on either side; other frames (CONNECTED, RECEIPT, heartbeats) are not always
+ * written one for one, and a leftover entry would age until a healthy session was
+ * closed. Sizes are STOMP payload sizes and leave out frame headers, so they slightly
+ * under-count what the transport buffers.
+ *
+ * A periodic check gives a strike to every session that is over the pending-bytes
+ * threshold or whose oldest pending message has waited longer than the slow-send
+ * threshold; a healthy check clears the strikes. Sessions reaching the strike limit
+ * are closed before the transport's own send time limit would do it.
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionRegistry.class);
+
+    // Every frame the STOMP encoder writes starts with its command and a newline
+    private static final String MESSAGE_COMMAND = "MESSAGE\n";
+    private static final byte[] MESSAGE_COMMAND_BYTES = MESSAGE_COMMAND.getBytes(StandardCharsets.US_ASCII);
+
+    @Value("${app.websocket.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${app.websocket.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimitBytes;
+
+    @Value("${app.websocket.slow-consumer.pending-ratio:0.75}")
+    private double slowPendingRatio;
+
+    @Value("${app.websocket.slow-consumer.send-ms:10000}")
+    private long slowSendMs;
+
+    @Value("${app.websocket.slow-consumer.max-strikes:3}")
+    private int maxStrikes;
+
+    private final ConcurrentHashMap<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<String>> sessionIdsByUser = new ConcurrentHashMap<>();
+
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
+    private final AtomicLong slowConsumerCloses = new AtomicLong();
+
+    private volatile long lastCheckAt = System.currentTimeMillis();
+    private volatile long lastCheckMessages;
+    private volatile long messagesPerSecond;
+
+    private record Pending(int bytes, long queuedAt) {
+    }
+
+    private static final class TrackedSession {
+        final WebSocketSession session;
+        final ConcurrentLinkedDeque<Pending> pending = new ConcurrentLinkedDeque<>();
+        final AtomicLong pendingBytes = new AtomicLong();
+        final AtomicInteger strikes = new AtomicInteger();
+        volatile Long userId;
+
+        TrackedSession(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Registers a newly opened session and returns the session the STOMP handler should
+     * use, which reports writes back here. Returns null when the connection limit is
+     * reached; the caller must then close the session.
+     */
+    public WebSocketSession register(WebSocketSession session) {
+        if (sessions.size() >= maxConnections) {
+            rejectedConnections.incrementAndGet();
+            return null;
+        }
+        TrackedSession tracked = new TrackedSession(session);
+        sessions.put(session.getId(), tracked);
+        return new MeteredSession(session, tracked);
+    }
+
+    public void unregister(String sessionId) {
+        TrackedSession tracked = sessions.remove(sessionId);
+        if (tracked != null && tracked.userId != null) {
+            sessionIdsByUser.computeIfPresent(tracked.userId, (userId, ids) -> {
+                ids.remove(sessionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // Called on STOMP CONNECT once the token has been verified
+    public void bindUser(String sessionId, Long userId) {
+        TrackedSession tracked = sessions.get(sessionId);
+        if (tracked == null) {
+            return;
+        }
+        tracked.userId = userId;
+        sessionIdsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    // Sessions on this node only; in relay mode the user may be connected to another node
+    public Set<String> getSessionIds(Long userId) {
+        Set<String> ids = sessionIdsByUser.get(userId);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    public void messageQueued(String sessionId, int bytes) {
+        TrackedSession tracked = sessions.get(sessionId);
+        if (tracked != null) {
+            tracked.pending.addLast(new Pending(bytes, System.currentTimeMillis()));
+            tracked.pendingBytes.addAndGet(bytes);
+        }
+    }
+
+    // The outbound channel refused the message, so it will never be written
+    public void messageDropped(String sessionId) {
+        TrackedSession tracked = sessions.get(sessionId);
+        if (tracked != null) {
+            Pending dropped = tracked.pending.pollLast();
+            if (dropped != null) {
+                tracked.pendingBytes.addAndGet(-dropped.bytes());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.slow-consumer.check-ms:5000}")
+    public void checkSlowConsumers() {
+        long now = System.currentTimeMillis();
+        long sent = messagesSent.get();
+        long elapsed = Math.max(1, now - lastCheckAt);
+        messagesPerSecond = (sent - lastCheckMessages) * 1000 / elapsed;
+        lastCheckMessages = sent;
+        lastCheckAt = now;
+
+        long pendingLimit = (long) (sendBufferLimitBytes * slowPendingRatio);
+        for (TrackedSession tracked : sessions.values()) {
+            Pending oldest = tracked.pending.peekFirst();
+            boolean slow = tracked.pendingBytes.get() > pendingLimit
+                    || (oldest != null && now - oldest.queuedAt() > slowSendMs);
+            if (!slow) {
+                tracked.strikes.set(0);
+            } else if (tracked.strikes.incrementAndGet() >= maxStrikes) {
+                closeSlowConsumer(tracked);
+            }
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        long pendingBytes = 0;
+        long maxPendingBytes = 0;
+        long slowConsumers = 0;
+        for (TrackedSession tracked : sessions.values()) {
+            long bytes = tracked.pendingBytes.get();
+            pendingBytes += bytes;
+            maxPendingBytes = Math.max(maxPendingBytes, bytes);
+            if (tracked.strikes.get() > 0) {
+                slowConsumers++;
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("connections", (long) sessions.size());
+        stats.put("maxConnections", (long) maxConnections);
+        stats.put("users", (long) sessionIdsByUser.size());
+        stats.put("messagesSent", messagesSent.get());
+        stats.put("bytesSent", bytesSent.get());
+        stats.put("messagesPerSecond", messagesPerSecond);
+        stats.put("pendingBytes", pendingBytes);
+        stats.put("maxSessionPendingBytes", maxPendingBytes);
+        stats.put("sendBufferLimitBytes", (long) sendBufferLimitBytes);
+        stats.put("slowConsumers", slowConsumers);
+        stats.put("slowConsumerCloses", slowConsumerCloses.get());
+        stats.put("rejectedConnections", rejectedConnections.get());
+        return stats;
+    }
+
+    private void closeSlowConsumer(TrackedSession tracked) {
+        slowConsumerCloses.incrementAndGet();
+        logger.warn("Closing slow WebSocket consumer {} (user {}): {} bytes pending",
+                tracked.session.getId(), tracked.userId, tracked.pendingBytes.get());
+        try {
+            tracked.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.debug("Error closing WebSocket session {}: {}", tracked.session.getId(), e.getMessage());
+        }
+    }
+
+    // Sees every frame the transport writes for one session
+    private final class MeteredSession extends WebSocketSessionDecorator {
+
+        private final TrackedSession tracked;
+
+        MeteredSession(WebSocketSession delegate, TrackedSession tracked) {
+            super(delegate);
+            this.tracked = tracked;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            messagesSent.incrementAndGet();
+            bytesSent.addAndGet(message.getPayloadLength());
+            if (!isMessageFrame(message)) {
+                return;
+            }
+            Pending written = tracked.pending.pollFirst();
+            if (written != null) {
+                tracked.pendingBytes.addAndGet(-written.bytes());
+            }
+        }
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.getPayload().startsWith(MESSAGE_COMMAND);
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload();
+            if (payload.remaining() < MESSAGE_COMMAND_BYTES.length) {
+                return false;
+            }
+            for (int i = 0; i < MESSAGE_COMMAND_BYTES.length; i++) {
+                if (payload.get(payload.position() + i) != MESSAGE_COMMAND_BYTES[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package com.quickcart.migration;
+
+import com.quickcart.entity.DataMigration;
+import com.quickcart.repository.DataMigrationRepository;
+import com.quickcart.repository.SellerDailyEarningsRepository;
+import com.quickcart.repository.SellerOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fills the seller order links and the seller daily earnings rollup from orders placed
+ * before those tables existed. New orders maintain both tables themselves.
+ *
+ * Each backfill runs once per database, recorded in {@code data_migrations} rather than
+ * inferred from an empty table, and before the web server takes requests. Nodes starting
+ * together serialize on the marker row's lock. The statements themselves are idempotent,
+ * so a backfill interrupted before its marker commits can simply run again.
+ */
+@Component
+public class SellerDataBackfill implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SellerDataBackfill.class);
+
+    static final String SELLER_ORDERS = "seller-orders-backfill";
+    static final String SELLER_DAILY_EARNINGS = "seller-daily-earnings-backfill";
+
+    // Ahead of the web server's start phase (DEFAULT_PHASE - 2048), so no order is written first
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Autowired
+    private SellerOrderRepository sellerOrderRepository;
+
+    @Autowired
+    private SellerDailyEarningsRepository sellerDailyEarningsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        apply(SELLER_ORDERS, () -> {
+            int linked = sellerOrderRepository.backfillFromOrders();
+            logger.info("Linked {} existing orders to their sellers", linked);
+        });
+        apply(SELLER_DAILY_EARNINGS, () -> {
+            int days = sellerDailyEarningsRepository.backfillFromDeliveredOrders();
+            logger.info("Built {} seller daily earnings rows from delivered orders", days);
+        });
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void apply(String name, Runnable backfill) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> dataMigrationRepository.register(name));
+        transactionTemplate.executeWithoutResult(status -> {
+            DataMigration migration = dataMigrationRepository.lockByName(name).orElseThrow();
+            if (migration.getAppliedAt() != null) {
+                return;
+            }
+            backfill.run();
+            migration.setAppliedAt(LocalDateTime.now());
+        });
+    }
+}
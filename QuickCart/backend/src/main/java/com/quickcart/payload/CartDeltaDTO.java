@@ -0,0 +1,20 @@
+package com.quickcart.payload;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * What a cart mutation changed: the one line it touched and the cart's new totals.
+ * Clients patch their copy of the cart with it instead of reloading the whole cart.
+ */
+@Data
+public class CartDeltaDTO {
+    private Long cartId;
+    private CartResponseDTO.CartItemDTO item; // The added or updated line; null when it was removed
+    private Long removedItemId;
+    private int itemCount;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private BigDecimal discount = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+}
@@ -0,0 +1,152 @@
+package com.quickcart.payload;
+
+import com.quickcart.entity.Cart;
+import com.quickcart.entity.CartItem;
+import com.quickcart.entity.Product;
+import com.quickcart.media.ImageRendition;
+import com.quickcart.repository.CartLine;
+import com.quickcart.repository.CartTotals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+public class CartMapper {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    public static CartResponseDTO toDto(Cart cart) {
+        if (cart == null) return null;
+
+        CartResponseDTO responseDTO = new CartResponseDTO();
+        responseDTO.setId(cart.getId());
+        responseDTO.setCreatedAt(cart.getCreatedAt());
+        responseDTO.setUpdatedAt(cart.getUpdatedAt());
+
+        cart.getCartItems().forEach(item -> responseDTO.getCartItems().add(toItemDto(item)));
+
+        return applyTotals(responseDTO);
+    }
+
+    /**
+     * Builds the cart view from the rows of {@link com.quickcart.repository.CartRepository#findCartLines}.
+     * Returns null when there are no rows, i.e. the user has no cart.
+     */
+    public static CartResponseDTO toDto(List<CartLine> lines) {
+        if (lines.isEmpty()) return null;
+
+        CartLine first = lines.get(0);
+        CartResponseDTO responseDTO = new CartResponseDTO();
+        responseDTO.setId(first.cartId());
+        responseDTO.setCreatedAt(first.cartCreatedAt());
+        responseDTO.setUpdatedAt(first.cartUpdatedAt());
+
+        for (CartLine line : lines) {
+            if (line.itemId() == null) {
+                continue; // the single row of an empty cart
+            }
+            CartResponseDTO.ProductDTO productDTO = new CartResponseDTO.ProductDTO();
+            productDTO.setId(line.productId());
+            productDTO.setName(line.name());
+            productDTO.setDescription(line.description());
+            productDTO.setImageUrl(ProductMapper.renditionUrl(line.imageUrl(), line.imageRenditionsReady(), ImageRendition.THUMB));
+            productDTO.setCategory(line.category());
+            productDTO.setBrand(line.brand());
+            productDTO.setColor(line.color());
+            productDTO.setSize(line.size());
+            productDTO.setStock(line.stock());
+            productDTO.setAvailable(line.available());
+            productDTO.setPrice(line.price());
+            productDTO.setDiscountPercentage(line.discountPercentage());
+
+            CartResponseDTO.CartItemDTO itemDTO = new CartResponseDTO.CartItemDTO();
+            itemDTO.setId(line.itemId());
+            itemDTO.setQuantity(line.quantity());
+            itemDTO.setCreatedAt(line.itemCreatedAt());
+            itemDTO.setUpdatedAt(line.itemUpdatedAt());
+            itemDTO.setProduct(productDTO);
+            itemDTO.setLineTotal(lineSubtotal(itemDTO).subtract(lineDiscount(itemDTO)));
+            responseDTO.getCartItems().add(itemDTO);
+        }
+
+        return applyTotals(responseDTO);
+    }
+
+    /**
+     * Builds the response of a cart mutation from the touched line, or the id of the removed
+     * line, and the totals of {@link com.quickcart.repository.CartRepository#findTotals}.
+     */
+    public static CartDeltaDTO toDelta(Long cartId, CartItem item, Long removedItemId, CartTotals totals) {
+        CartDeltaDTO delta = new CartDeltaDTO();
+        delta.setCartId(cartId);
+        delta.setItem(toItemDto(item));
+        delta.setRemovedItemId(removedItemId);
+        delta.setItemCount(totals.itemCount().intValue());
+        delta.setSubtotal(totals.subtotal().setScale(2, RoundingMode.HALF_UP));
+        delta.setDiscount(totals.discount().setScale(2, RoundingMode.HALF_UP));
+        delta.setTotal(delta.getSubtotal().subtract(delta.getDiscount()));
+        return delta;
+    }
+
+    // Line discounts are rounded to cents per line, so the lines always add up to the total
+    private static CartResponseDTO applyTotals(CartResponseDTO cart) {
+        int itemCount = 0;
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal discount = BigDecimal.ZERO;
+        for (CartResponseDTO.CartItemDTO item : cart.getCartItems()) {
+            itemCount += item.getQuantity() != null ? item.getQuantity() : 0;
+            subtotal = subtotal.add(lineSubtotal(item));
+            discount = discount.add(lineDiscount(item));
+        }
+        cart.setItemCount(itemCount);
+        cart.setSubtotal(subtotal.setScale(2, RoundingMode.HALF_UP));
+        cart.setDiscount(discount.setScale(2, RoundingMode.HALF_UP));
+        cart.setTotal(cart.getSubtotal().subtract(cart.getDiscount()));
+        return cart;
+    }
+
+    private static BigDecimal lineSubtotal(CartResponseDTO.CartItemDTO item) {
+        int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+        return item.getProduct().getPrice().multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal lineDiscount(CartResponseDTO.CartItemDTO item) {
+        return lineSubtotal(item).multiply(item.getProduct().getDiscountPercentage())
+                .divide(HUNDRED, 2, RoundingMode.HALF_UP);
+    }
+
+    public static CartResponseDTO.CartItemDTO toItemDto(CartItem item) {
+        if (item == null) return null;
+
+        CartResponseDTO.CartItemDTO itemDTO = new CartResponseDTO.CartItemDTO();
+        itemDTO.setId(item.getId());
+        itemDTO.setQuantity(item.getQuantity());
+        itemDTO.setCreatedAt(item.getCreatedAt());
+        itemDTO.setUpdatedAt(item.getUpdatedAt());
+        itemDTO.setProduct(toProductDto(item.getProduct()));
+        itemDTO.setLineTotal(lineSubtotal(itemDTO).subtract(lineDiscount(itemDTO)));
+
+        return itemDTO;
+    }
+
+    public static CartResponseDTO.ProductDTO toProductDto(Product product) {
+        if (product == null) return null;
+
+        CartResponseDTO.ProductDTO productDTO = new CartResponseDTO.ProductDTO();
+        productDTO.setId(product.getId());
+        productDTO.setName(product.getName());
+        productDTO.setDescription(product.getDescription());
+        productDTO.setImageUrl(ProductMapper.renditionUrl(product, ImageRendition.THUMB));
+        productDTO.setCategory(product.getCategory());
+        productDTO.setBrand(product.getBrand());
+        productDTO.setColor(product.getColor());
+        productDTO.setSize(product.getSize());
+        productDTO.setStock(product.getStock());
+        productDTO.setAvailable(product.isAvailable());
+        // Setters default missing price and discount to zero
+        productDTO.setPrice(product.getPrice());
+        productDTO.setDiscountPercentage(product.getDiscountPercentage());
+
+        return productDTO;
+    }
+}
@@ -3,16 +3,22 @@ package com.quickcart.payload;
 import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.math.BigDecimal;
 
 @Data
 public class CartResponseDTO {
     private Long id;
-    private Set<CartItemDTO> cartItems = new HashSet<>();
+    private Set<CartItemDTO> cartItems = new LinkedHashSet<>();
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Computed server-side by CartMapper; discount is what product discounts take off subtotal
+    private int itemCount;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private BigDecimal discount = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+
     @Data
     public static class CartItemDTO {
         private Long id;
@@ -20,6 +26,7 @@ public class CartResponseDTO {
         private Integer quantity;
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
+        private BigDecimal lineTotal; // After the product discount
     }
 
     @Data
@@ -0,0 +1,16 @@
+package com.quickcart.payload;
+
+import com.quickcart.entity.Order.PaymentMethod;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+// Checkout from the server-side cart: the items come from the cart, not the request
+@Data
+public class CheckoutRequest {
+    @NotBlank(message = "Shipping address is required")
+    private String shippingAddress;
+
+    @NotNull(message = "Payment method is required")
+    private PaymentMethod paymentMethod;
+}
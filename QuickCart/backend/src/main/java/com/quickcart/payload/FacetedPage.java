@@ -0,0 +1,26 @@
+package com.quickcart.payload;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of search results plus facet counts over the whole result set, serialized
+ * as the usual page JSON with an extra {@code facets} object:
+ * facet name (category, brand, color, size, price, discount) to value to count.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+
+    private final Map<String, Map<String, Long>> facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, Map<String, Map<String, Long>> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,63 @@
+package com.quickcart.payload;
+
+import com.quickcart.entity.Product;
+import com.quickcart.media.ImageRendition;
+
+public class ProductMapper {
+
+    /**
+     * @param availableStock stock left after active cart holds, computed by the caller
+     */
+    public static ProductResponseDTO toDto(Product product, Integer availableStock) {
+        if (product == null) return null;
+
+        return new ProductResponseDTO(
+            product.getId(),
+            product.getName(),
+            product.getDescription(),
+            product.getPrice(),
+            product.getCategory(),
+            product.getBrand(),
+            product.getColor(),
+            product.getSize(),
+            product.getStock(),
+            renditionUrl(product, ImageRendition.FULL),
+            product.getDiscountPercentage(),
+            product.isAvailable(),
+            product.getSeller().getId(),
+            product.getSeller().getUsername(),
+            product.getCreatedAt(),
+            product.getUpdatedAt(),
+            availableStock,
+            renditionUrl(product, ImageRendition.THUMB),
+            renditionUrl(product, ImageRendition.CARD)
+        );
+    }
+
+    // Falls back to the original upload while the renditions are still being encoded
+    public static String renditionUrl(Product product, ImageRendition rendition) {
+        return renditionUrl(product.getImageUrl(), product.isImageRenditionsReady(), rendition);
+    }
+
+    public static String renditionUrl(String imageUrl, boolean renditionsReady, ImageRendition rendition) {
+        if (imageUrl == null || imageUrl.startsWith("http") || !renditionsReady) {
+            return toImageUrl(imageUrl);
+        }
+        return toImageUrl(rendition.nameFor(imageUrl));
+    }
+
+    // Stored names are served through /api/product-images/; absolute URLs pass through
+    public static String toImageUrl(String imageUrl) {
+        if (imageUrl != null && !imageUrl.startsWith("http")) {
+
+            imageUrl = imageUrl.replaceFirst("^/+", "");
+
+            if (!imageUrl.startsWith("api/product-images/")) {
+                imageUrl = "api/product-images/" + imageUrl;
+            }
+
+            imageUrl = "/" + imageUrl;
+        }
+        return imageUrl;
+    }
+}
@@ -3,6 +3,7 @@ package com.quickcart.payload;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Builder(toBuilder = true)
 public class ProductResponseDTO {
     private Long id;
     private String name;
@@ -27,4 +29,7 @@ public class ProductResponseDTO {
     private String sellerUsername; // Or username if needed
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Integer availableStock; // Stock minus active cart holds
+    private String thumbnailUrl; // Renditions; the original upload until they are ready
+    private String cardImageUrl;
 } 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.quickcart.payload;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Pushed on /topic/products/{id} whenever a product's stock or cart holds change
+@Data
+@NoArgsConstructor
+public class ProductStockUpdate {
+    private Long productId;
+    private Integer stock;
+    private Integer availableStock;
+    private boolean available;
+
+    public ProductStockUpdate(Long productId, Integer stock, boolean available) {
+        this.productId = productId;
+        this.stock = stock;
+        this.available = available;
+    }
+}
@@ -1,8 +1,12 @@
 package com.quickcart.payload;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class SellerEarningsDto {
     private double daily;
     private double weekly;
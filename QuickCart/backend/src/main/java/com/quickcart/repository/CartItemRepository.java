@@ -4,10 +4,27 @@ import com.quickcart.entity.Cart;
 import com.quickcart.entity.CartItem;
 import com.quickcart.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     CartItem findByCartAndProduct(Cart cart, Product product);
     void deleteAllByCart(Cart cart);
-} 
\ No newline at end of file
+
+    // Ownership is part of the lookup, so another user's item id reads as not found
+    @Query("SELECT i FROM CartItem i JOIN FETCH i.product WHERE i.id = :itemId AND i.cart.user.id = :userId")
+    Optional<CartItem> findOwnedItem(@Param("itemId") Long itemId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE CartItem i SET i.quantity = :quantity, i.updatedAt = LOCAL DATETIME WHERE i.id = :itemId")
+    int updateQuantity(@Param("itemId") Long itemId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM CartItem i WHERE i.cart.id IN (SELECT c.id FROM Cart c WHERE c.user.id = :userId)")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
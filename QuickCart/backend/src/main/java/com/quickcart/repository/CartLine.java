@@ -0,0 +1,32 @@
+package com.quickcart.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the cart read query: the cart's own columns repeated on every line, plus
+ * one item and the product fields the cart view shows. An empty cart comes back as a
+ * single row whose item and product fields are null.
+ */
+public record CartLine(
+        Long cartId,
+        LocalDateTime cartCreatedAt,
+        LocalDateTime cartUpdatedAt,
+        Long itemId,
+        Integer quantity,
+        LocalDateTime itemCreatedAt,
+        LocalDateTime itemUpdatedAt,
+        Long productId,
+        String name,
+        String description,
+        String imageUrl,
+        boolean imageRenditionsReady,
+        String category,
+        String brand,
+        String color,
+        String size,
+        Integer stock,
+        boolean available,
+        BigDecimal price,
+        BigDecimal discountPercentage) {
+}
@@ -19,8 +19,12 @@ package com.quickcart.repository;
 import com.quickcart.entity.Cart;
 import com.quickcart.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -28,4 +32,34 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
     Optional<Cart> findByUserId(Long userId);
     void deleteByUser(User user);
-}
\ No newline at end of file
+
+    // The whole cart view in one statement; no rows means the user has no cart
+    @Query("SELECT new com.quickcart.repository.CartLine(c.id, c.createdAt, c.updatedAt, " +
+           "i.id, i.quantity, i.createdAt, i.updatedAt, " +
+           "p.id, p.name, p.description, p.imageUrl, COALESCE(p.imageRenditionsReady, false), p.category, p.brand, " +
+           "p.color, p.size, p.stock, COALESCE(p.available, false), p.price, p.discountPercentage) " +
+           "FROM Cart c LEFT JOIN c.cartItems i LEFT JOIN i.product p " +
+           "WHERE c.user.id = :userId ORDER BY i.id")
+    List<CartLine> findCartLines(@Param("userId") Long userId);
+
+    // The cart id and the line for one product in one statement; empty when the user has no cart
+    @Query("SELECT new com.quickcart.repository.CartSlot(c.id, i.id, i.product.id, i.quantity, i.createdAt) " +
+           "FROM Cart c LEFT JOIN c.cartItems i ON i.product.id = :productId " +
+           "WHERE c.user.id = :userId")
+    Optional<CartSlot> findSlot(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    // The batch form of findSlot: one row per existing line of the given products, or a
+    // single row with a null line when none is in the cart; empty when the user has no cart
+    @Query("SELECT new com.quickcart.repository.CartSlot(c.id, i.id, i.product.id, i.quantity, i.createdAt) " +
+           "FROM Cart c LEFT JOIN c.cartItems i ON i.product.id IN :productIds " +
+           "WHERE c.user.id = :userId")
+    List<CartSlot> findSlots(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+
+    // Same per-line rounding as CartMapper, so the totals match the next cart view
+    @Query("SELECT new com.quickcart.repository.CartTotals(" +
+           "CAST(COALESCE(SUM(i.quantity), 0) AS Long), " +
+           "CAST(COALESCE(SUM(ROUND(p.price * i.quantity, 2)), 0) AS BigDecimal), " +
+           "CAST(COALESCE(SUM(ROUND(p.price * i.quantity * COALESCE(p.discountPercentage, 0) / 100, 2)), 0) AS BigDecimal)) " +
+           "FROM CartItem i JOIN i.product p WHERE i.cart.id = :cartId")
+    CartTotals findTotals(@Param("cartId") Long cartId);
+}
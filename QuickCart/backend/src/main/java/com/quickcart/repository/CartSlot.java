@@ -0,0 +1,10 @@
+package com.quickcart.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where an add-to-cart lands: the user's cart and, when the product is already in it,
+ * that line's id, product, quantity and creation time (otherwise all null).
+ */
+public record CartSlot(Long cartId, Long itemId, Long productId, Integer quantity, LocalDateTime itemCreatedAt) {
+}
@@ -0,0 +1,10 @@
+package com.quickcart.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Cart totals aggregated in the database, rounded per line the same way as
+ * {@link com.quickcart.payload.CartMapper} rounds the full cart view.
+ */
+public record CartTotals(Long itemCount, BigDecimal subtotal, BigDecimal discount) {
+}
@@ -0,0 +1,27 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.DataMigration;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+
+    // Creates the marker row if no node has yet, so there is always a row to lock
+    @Modifying
+    @Query(value = "INSERT INTO data_migrations (name) VALUES (:name) ON DUPLICATE KEY UPDATE name = name",
+            nativeQuery = true)
+    int register(@Param("name") String name);
+
+    // Nodes starting together queue here; the first applies the backfill, the rest find it applied
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM DataMigration m WHERE m.name = :name")
+    Optional<DataMigration> lockByName(@Param("name") String name);
+}
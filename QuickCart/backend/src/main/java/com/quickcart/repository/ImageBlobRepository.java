@@ -0,0 +1,37 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // Adds a reference, creating the blob row on first use; locks the row until commit
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (filename, size_bytes, ref_count) VALUES (:filename, :sizeBytes, 1) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+            nativeQuery = true)
+    int acquire(@Param("filename") String filename, @Param("sizeBytes") long sizeBytes);
+
+    // Returns 0 for files stored before blobs were tracked
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1 WHERE b.filename = :filename")
+    int release(@Param("filename") String filename);
+
+    @Modifying
+    @Query("DELETE FROM ImageBlob b WHERE b.filename = :filename AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("filename") String filename);
+
+    // Locks the row, or the gap where it would go, so an upload of the same bytes waits for the caller
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.filename = :filename")
+    Optional<ImageBlob> lockByFilename(@Param("filename") String filename);
+}
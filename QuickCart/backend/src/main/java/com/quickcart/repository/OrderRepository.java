@@ -6,13 +6,16 @@ import com.quickcart.entity.Order.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -22,11 +25,22 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Page<Order> findByUserAndStatusOrderByOrderDateDesc(User user, OrderStatus status, Pageable pageable);
 
 
-    @Query("SELECT DISTINCT o FROM Order o JOIN o.items oi JOIN oi.product p WHERE p.seller = :seller")
-    Page<Order> findOrdersBySeller(@Param("seller") User seller, Pageable pageable);
+    // Second phase of seller order paging: the page's orders with buyer, items and products in one statement
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.items oi LEFT JOIN FETCH oi.product WHERE o.id IN :ids")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT DISTINCT o FROM Order o JOIN o.items oi JOIN oi.product p WHERE p.seller = :seller AND o.status = :status")
-    Page<Order> findOrdersBySellerAndStatus(@Param("seller") User seller, @Param("status") OrderStatus status, Pageable pageable);
+    // The order a checkout with this idempotency key already placed, ready for OrderMapper
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.items oi LEFT JOIN FETCH oi.product " +
+           "WHERE o.user.id = :userId AND o.idempotencyKey = :idempotencyKey")
+    Optional<Order> findByUserIdAndIdempotencyKey(@Param("userId") Long userId,
+                                                  @Param("idempotencyKey") String idempotencyKey);
+
+    // Moves the order on only if it is still in the status the caller read; 0 when another update got there first
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus WHERE o.id = :id AND o.status = :expectedStatus")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("expectedStatus") OrderStatus expectedStatus,
+                         @Param("newStatus") OrderStatus newStatus);
 
     @Query("SELECT SUM(oi.price * oi.quantity) " +
             "FROM Order o " +
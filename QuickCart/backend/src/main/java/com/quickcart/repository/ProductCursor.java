@@ -0,0 +1,108 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.Product;
+import com.quickcart.exception.BadRequestException;
+import com.quickcart.search.ProductSearchDocument;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position in a keyset-paginated product listing: the sort key and id of the last
+ * product returned. Encoded for clients as an opaque URL-safe string.
+ *
+ * Only non-null sort keys can be used for seeking; any other requested sort falls
+ * back to {@code createdAt} descending.
+ */
+public class ProductCursor {
+
+    public static final List<String> SORTABLE_PROPERTIES = List.of("createdAt", "price", "name");
+
+    private static final Sort.Order DEFAULT_ORDER = Sort.Order.desc("createdAt");
+
+    private final Sort.Order order;
+    private final Comparable<?> value;
+    private final Long id;
+
+    private ProductCursor(Sort.Order order, Comparable<?> value, Long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ProductCursor after(Sort.Order order, Product product) {
+        Comparable<?> value = switch (order.getProperty()) {
+            case "price" -> product.getPrice();
+            case "name" -> product.getName();
+            default -> product.getCreatedAt();
+        };
+        return new ProductCursor(order, value, product.getId());
+    }
+
+    // Cursor for a slice served by the search index, keyed on the index's own copy of the row
+    public static ProductCursor after(Sort.Order order, ProductSearchDocument document) {
+        Comparable<?> value = switch (order.getProperty()) {
+            case "price" -> document.getPrice();
+            case "name" -> document.getName();
+            default -> document.getCreatedAt();
+        };
+        return new ProductCursor(order, value, document.getId());
+    }
+
+    // The seekable order closest to the requested sort
+    public static Sort.Order seekOrder(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(DEFAULT_ORDER);
+        return SORTABLE_PROPERTIES.contains(order.getProperty())
+                ? new Sort.Order(order.getDirection(), order.getProperty())
+                : DEFAULT_ORDER;
+    }
+
+    /**
+     * @throws BadRequestException if the cursor is malformed or was issued for another sort
+     */
+    public static ProductCursor decode(String cursor, Sort.Order expectedOrder) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The value goes last since a name may contain the separator
+            String[] parts = decoded.split("\\|", 4);
+            Sort.Order order = new Sort.Order(Sort.Direction.fromString(parts[1]), parts[0]);
+            if (!order.equals(expectedOrder)) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+            return new ProductCursor(order, parseValue(order.getProperty(), parts[3]), Long.valueOf(parts[2]));
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = order.getProperty() + "|" + order.getDirection() + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    private static Comparable<?> parseValue(String property, String value) {
+        return switch (property) {
+            case "price" -> new BigDecimal(value);
+            case "name" -> value;
+            default -> LocalDateTime.parse(value);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.quickcart.repository;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Facet names, bucket bounds and ordering shared by the SQL facet counts and the
+ * search index, so a facet reads the same whichever of them counted it.
+ */
+public final class ProductFacets {
+
+    public static final List<String> NAMES = List.of("category", "brand", "color", "size", "price", "discount");
+
+    // Upper bounds (exclusive) of the price and discount facet buckets
+    static final int[] PRICE_BUCKETS = {25, 50, 100, 250, 500};
+    static final int[] DISCOUNT_BUCKETS = {1, 10, 25, 50};
+
+    private ProductFacets() {
+    }
+
+    public static String priceBucket(BigDecimal price) {
+        return price == null ? null : bucket(price, PRICE_BUCKETS);
+    }
+
+    // A missing discount counts as no discount, as in the SQL facet query
+    public static String discountBucket(BigDecimal discount) {
+        return bucket(discount == null ? BigDecimal.ZERO : discount, DISCOUNT_BUCKETS);
+    }
+
+    /**
+     * @return every facet in {@link #NAMES} order; attribute values by descending count,
+     *         price and discount buckets by ascending lower bound
+     */
+    public static Map<String, Map<String, Long>> ordered(Map<String, Map<String, Long>> counts) {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        for (String facet : NAMES) {
+            Map<String, Long> values = counts.getOrDefault(facet, Map.of());
+            boolean bucketed = facet.equals("price") || facet.equals("discount");
+            facets.put(facet, bucketed ? sortBuckets(values) : sortByCount(values));
+        }
+        return facets;
+    }
+
+    static String label(int lower, int upper) {
+        return lower + "-" + upper;
+    }
+
+    static String openLabel(int lower) {
+        return lower + "+";
+    }
+
+    private static String bucket(BigDecimal value, int[] upperBounds) {
+        int lower = 0;
+        for (int upper : upperBounds) {
+            if (value.compareTo(BigDecimal.valueOf(upper)) < 0) {
+                return label(lower, upper);
+            }
+            lower = upper;
+        }
+        return openLabel(lower);
+    }
+
+    private static Map<String, Long> sortByCount(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    // Buckets in ascending order of their lower bound
+    private static Map<String, Long> sortBuckets(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> Integer.parseInt(entry.getKey().split("[-+]")[0])))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+}
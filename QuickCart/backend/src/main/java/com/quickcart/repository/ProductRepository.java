@@ -2,19 +2,42 @@ package com.quickcart.repository;
 
 import com.quickcart.entity.Product;
 import com.quickcart.entity.User;
+import com.quickcart.payload.ProductStockUpdate;
+import com.quickcart.search.ProductSearchDocument;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
+
+    // Listing queries load the seller in the same statement; DTO mapping reads its username
+    @Override
+    @EntityGraph(attributePaths = "seller")
+    Optional<Product> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "seller")
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "seller")
+    List<Product> findAll(Specification<Product> spec);
 
     // Find products by seller
+    @EntityGraph(attributePaths = "seller")
     Page<Product> findBySeller(User seller, Pageable pageable);
 
     // Basic search by name
@@ -28,6 +51,44 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
 
 
+    // Loads every product of an order in one statement, seller included
+    @Query("SELECT p FROM Product p JOIN FETCH p.seller WHERE p.id IN :ids")
+    List<Product> findAllWithSellerByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Without the seller graph of findById; cart mutations never read the seller
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findForCart(@Param("id") Long id);
+
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllForCart(@Param("ids") Collection<Long> ids);
+
+    // Current stock of the given products, for realtime stock updates
+    @Query("SELECT new com.quickcart.payload.ProductStockUpdate(p.id, p.stock, p.available) FROM Product p WHERE p.id IN :ids")
+    List<ProductStockUpdate> findStockUpdates(@Param("ids") Collection<Long> ids);
+
+    interface PendingImage {
+        Long getId();
+        String getImageUrl();
+    }
+
+    // Uploaded images still without renditions, in id order after afterId
+    @Query("SELECT p.id AS id, p.imageUrl AS imageUrl FROM Product p " +
+           "WHERE p.imageRenditionsReady = false AND p.imageUrl IS NOT NULL AND p.imageUrl NOT LIKE 'http%' " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<PendingImage> findPendingImageRenditions(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Only marks the product if its image is still the one the renditions were made from
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.imageRenditionsReady = true WHERE p.id = :id AND p.imageUrl = :imageUrl")
+    int markImageRenditionsReady(@Param("id") Long id, @Param("imageUrl") String imageUrl);
+
+    // Keyset-paged scan of the indexed columns, used to build the search index
+    @Query("SELECT new com.quickcart.search.ProductSearchDocument(p.id, p.name, p.description, p.brand, p.category, " +
+           "p.color, p.size, p.price, p.discountPercentage, p.available, p.createdAt) " +
+           "FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
+
     @Query("SELECT DISTINCT p.category FROM Product p WHERE p.category IS NOT NULL ORDER BY p.category")
     List<String> findAllCategories();
 
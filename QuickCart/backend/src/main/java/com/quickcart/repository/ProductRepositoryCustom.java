@@ -0,0 +1,40 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Decrements stock for all given products in a single JDBC batch. Each row is
+     * guarded by {@code stock >= quantity + reserved}, so concurrent checkouts can never
+     * drive stock negative, overwrite each other's decrements, or eat into stock other
+     * carts are holding.
+     *
+     * @param quantitiesByProductId quantity to take from each product
+     * @param reservedByProductId stock that must remain afterwards; missing ids mean zero
+     * @return ids of the products whose guard failed (not enough stock); empty on success
+     */
+    List<Long> decrementStock(Map<Long, Integer> quantitiesByProductId, Map<Long, Integer> reservedByProductId);
+
+    /**
+     * Counts the products matching the specification per category, brand, color, size,
+     * price bucket and discount bucket: one GROUP BY per facet, sent as a single
+     * UNION ALL statement so each facet costs rows per value, not per combination.
+     *
+     * @return facet name to (value to count); price and discount keys are bucket labels
+     *         such as {@code "50-100"} (lower bound inclusive) or {@code "500+"}
+     */
+    Map<String, Map<String, Long>> countFacets(Specification<Product> spec);
+
+    /**
+     * Keyset page: up to {@code limit} products matching the specification that sort
+     * after {@code after} (or from the start when null), ordered by the cursor's sort key
+     * with id as tie-breaker. Sellers are fetched in the same query; no count is run.
+     */
+    List<Product> findPageAfter(Specification<Product> spec, Sort.Order order, ProductCursor after, int limit);
+}
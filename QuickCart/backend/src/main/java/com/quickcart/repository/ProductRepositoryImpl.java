@@ -0,0 +1,162 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Custom fragment of ProductRepository; runs on the JPA transaction's connection
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Affected-row counts decide the outcome, so the MySQL driver must not rewrite
+    // this batch (rewriteBatchedStatements) or it reports SUCCESS_NO_INFO instead.
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantitiesByProductId, Map<Long, Integer> reservedByProductId) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantitiesByProductId.entrySet());
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, line.getKey());
+                ps.setInt(4, line.getValue() + reservedByProductId.getOrDefault(line.getKey(), 0));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                insufficient.add(lines.get(i).getKey());
+            }
+        }
+        return insufficient;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Product> findPageAfter(Specification<Product> spec, Sort.Order order, ProductCursor after, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = criteriaBuilder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        root.fetch("seller");
+
+        Path<Comparable> key = root.get(order.getProperty());
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filter = spec.toPredicate(root, query, criteriaBuilder);
+        if (filter != null) {
+            predicates.add(filter);
+        }
+        if (after != null) {
+            // (key, id) strictly past the cursor in the listing's direction
+            Comparable value = after.getValue();
+            predicates.add(order.isAscending()
+                    ? criteriaBuilder.or(
+                            criteriaBuilder.greaterThan(key, value),
+                            criteriaBuilder.and(criteriaBuilder.equal(key, value), criteriaBuilder.greaterThan(id, after.getId())))
+                    : criteriaBuilder.or(
+                            criteriaBuilder.lessThan(key, value),
+                            criteriaBuilder.and(criteriaBuilder.equal(key, value), criteriaBuilder.lessThan(id, after.getId()))));
+        }
+
+        query.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(order.isAscending()
+                        ? List.of(criteriaBuilder.asc(key), criteriaBuilder.asc(id))
+                        : List.of(criteriaBuilder.desc(key), criteriaBuilder.desc(id)));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> countFacets(Specification<Product> spec) {
+        HibernateCriteriaBuilder criteriaBuilder = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+
+        // One small GROUP BY per facet, sent as a single UNION ALL statement; rows are (facet, value, count)
+        List<JpaCriteriaQuery<Tuple>> perFacet = new ArrayList<>();
+        for (int i = 0; i < ProductFacets.NAMES.size(); i++) {
+            JpaCriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+            Root<Product> root = query.from(Product.class);
+            Expression<String> value = facetValue(criteriaBuilder, root, ProductFacets.NAMES.get(i));
+            query.multiselect(criteriaBuilder.literal(i), value, criteriaBuilder.count(root))
+                    .where(spec.toPredicate(root, query, criteriaBuilder))
+                    .groupBy(value);
+            perFacet.add(query);
+        }
+        JpaCriteriaQuery<Tuple> union = criteriaBuilder.unionAll(perFacet.get(0),
+                perFacet.subList(1, perFacet.size()).toArray(new JpaCriteriaQuery[0]));
+
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(union).getResultList()) {
+            Object value = row.get(1);
+            if (value != null) {
+                String facet = ProductFacets.NAMES.get(((Number) row.get(0)).intValue());
+                counts.computeIfAbsent(facet, f -> new HashMap<>()).merge(value.toString(), row.get(2, Long.class), Long::sum);
+            }
+        }
+        return ProductFacets.ordered(counts);
+    }
+
+    private Expression<String> facetValue(CriteriaBuilder criteriaBuilder, Root<Product> root, String facet) {
+        return switch (facet) {
+            case "price" -> bucket(criteriaBuilder, root.get("price"), ProductFacets.PRICE_BUCKETS);
+            case "discount" -> bucket(criteriaBuilder,
+                    criteriaBuilder.coalesce(root.get("discountPercentage"), BigDecimal.ZERO), ProductFacets.DISCOUNT_BUCKETS);
+            default -> root.get(facet);
+        };
+    }
+
+    private Expression<String> bucket(CriteriaBuilder criteriaBuilder, Expression<? extends Number> value, int[] upperBounds) {
+        CriteriaBuilder.Case<String> bucket = criteriaBuilder.selectCase();
+        int lower = 0;
+        for (int upper : upperBounds) {
+            bucket = bucket.when(criteriaBuilder.lt(value, upper), ProductFacets.label(lower, upper));
+            lower = upper;
+        }
+        return bucket.otherwise(ProductFacets.openLabel(lower));
+    }
+}
@@ -0,0 +1,61 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.SellerDailyEarnings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface SellerDailyEarningsRepository extends JpaRepository<SellerDailyEarnings, Long> {
+
+    interface EarningsWindows {
+        BigDecimal getDaily();
+        BigDecimal getWeekly();
+        BigDecimal getMonthly();
+        BigDecimal getYearly();
+    }
+
+    // Adds (or with a negative amount, removes) revenue on the seller's row for that day
+    @Modifying
+    @Query(value = "INSERT INTO seller_daily_earnings (seller_id, earnings_date, amount) " +
+            "VALUES (:sellerId, :earningsDate, :amount) " +
+            "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)",
+            nativeQuery = true)
+    int addEarnings(@Param("sellerId") Long sellerId,
+                    @Param("earningsDate") LocalDate earningsDate,
+                    @Param("amount") BigDecimal amount);
+
+    // All four dashboard windows in one pass over the seller's rows since the earliest window start
+    @Query("SELECT " +
+            "SUM(CASE WHEN e.earningsDate >= :today THEN e.amount ELSE 0 END) AS daily, " +
+            "SUM(CASE WHEN e.earningsDate >= :weekStart THEN e.amount ELSE 0 END) AS weekly, " +
+            "SUM(CASE WHEN e.earningsDate >= :monthStart THEN e.amount ELSE 0 END) AS monthly, " +
+            "SUM(CASE WHEN e.earningsDate >= :yearStart THEN e.amount ELSE 0 END) AS yearly " +
+            "FROM SellerDailyEarnings e " +
+            "WHERE e.sellerId = :sellerId AND e.earningsDate >= :from AND e.earningsDate <= :today")
+    EarningsWindows sumEarningsWindows(@Param("sellerId") Long sellerId,
+                                       @Param("from") LocalDate from,
+                                       @Param("today") LocalDate today,
+                                       @Param("weekStart") LocalDate weekStart,
+                                       @Param("monthStart") LocalDate monthStart,
+                                       @Param("yearStart") LocalDate yearStart);
+
+    // Builds the rollup from delivered orders placed before it existed. Each day is recomputed
+    // from the orders, so re-running it overwrites rather than adds to existing rows.
+    @Modifying
+    @Query(value = "INSERT INTO seller_daily_earnings (seller_id, earnings_date, amount) " +
+            "SELECT p.seller_id, CAST(o.order_date AS DATE), SUM(oi.price * oi.quantity) " +
+            "FROM orders o " +
+            "JOIN order_items oi ON oi.order_id = o.id " +
+            "JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.status = 'DELIVERED' " +
+            "GROUP BY p.seller_id, CAST(o.order_date AS DATE) " +
+            "ON DUPLICATE KEY UPDATE amount = VALUES(amount)",
+            nativeQuery = true)
+    int backfillFromDeliveredOrders();
+}
@@ -0,0 +1,46 @@
+package com.quickcart.repository;
+
+import com.quickcart.entity.Order.OrderStatus;
+import com.quickcart.entity.SellerOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SellerOrderRepository extends JpaRepository<SellerOrder, Long> {
+
+    // First phase of seller order paging: ids only, straight off the link table indexes
+    @Query("SELECT so.orderId FROM SellerOrder so WHERE so.sellerId = :sellerId")
+    Page<Long> findOrderIdsBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+
+    @Query("SELECT so.orderId FROM SellerOrder so WHERE so.sellerId = :sellerId AND so.status = :status")
+    Page<Long> findOrderIdsBySellerIdAndStatus(@Param("sellerId") Long sellerId,
+                                               @Param("status") OrderStatus status,
+                                               Pageable pageable);
+
+    boolean existsBySellerIdAndOrderId(Long sellerId, Long orderId);
+
+    @Query("SELECT so.sellerId FROM SellerOrder so WHERE so.orderId = :orderId")
+    List<Long> findSellerIdsByOrderId(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("UPDATE SellerOrder so SET so.status = :status WHERE so.orderId = :orderId")
+    int updateStatusByOrderId(@Param("orderId") Long orderId, @Param("status") OrderStatus status);
+
+    // Links orders placed before this table existed; skips links that already exist, so it can re-run
+    @Modifying
+    @Query(value = "INSERT INTO seller_orders (seller_id, order_id, status, order_date) " +
+            "SELECT DISTINCT p.seller_id, o.id, o.status, o.order_date " +
+            "FROM orders o " +
+            "JOIN order_items oi ON oi.order_id = o.id " +
+            "JOIN products p ON p.id = oi.product_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM seller_orders so WHERE so.seller_id = p.seller_id AND so.order_id = o.id)",
+            nativeQuery = true)
+    int backfillFromOrders();
+}
@@ -15,8 +15,8 @@ public class ProductSpecification {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductSpecification.class);
 
+    // Attribute filters only; search terms are matched by the product search index
     public static Specification<Product> filterByCriteria(
-            String searchTerm,
             String category,
             String brand,
             String color,
@@ -31,13 +31,6 @@ public class ProductSpecification {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (StringUtils.hasText(searchTerm)) {
-                logger.info("Applying searchTerm filter: '{}'", searchTerm);
-                Predicate namePredicate = criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + searchTerm.toLowerCase() + "%");
-                Predicate descriptionPredicate = criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), "%" + searchTerm.toLowerCase() + "%");
-                predicates.add(criteriaBuilder.or(namePredicate, descriptionPredicate));
-            }
-
             if (StringUtils.hasText(category)) {
                 logger.info("Applying category filter: '{}'", category);
                 predicates.add(criteriaBuilder.equal(
@@ -99,4 +92,4 @@ public class ProductSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
-} 
\ No newline at end of file
+}
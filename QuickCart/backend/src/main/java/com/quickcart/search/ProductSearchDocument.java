@@ -0,0 +1,31 @@
+package com.quickcart.search;
+
+import com.quickcart.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// The searchable, filterable and sortable columns of a product, loaded without the rest of the entity
+@Getter
+@AllArgsConstructor
+public class ProductSearchDocument {
+    private Long id;
+    private String name;
+    private String description;
+    private String brand;
+    private String category;
+    private String color;
+    private String size;
+    private BigDecimal price;
+    private BigDecimal discountPercentage;
+    private boolean available;
+    private LocalDateTime createdAt;
+
+    public static ProductSearchDocument of(Product product) {
+        return new ProductSearchDocument(product.getId(), product.getName(), product.getDescription(),
+                product.getBrand(), product.getCategory(), product.getColor(), product.getSize(),
+                product.getPrice(), product.getDiscountPercentage(), product.isAvailable(), product.getCreatedAt());
+    }
+}
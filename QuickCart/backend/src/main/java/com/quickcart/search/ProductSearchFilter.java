@@ -0,0 +1,60 @@
+package com.quickcart.search;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Attribute filters applied to search index matches. Same rules as
+ * {@link com.quickcart.repository.specification.ProductSpecification#filterByCriteria}:
+ * case-insensitive equality, numeric sizes ignored (they are the page size), inclusive
+ * price bounds, and a minimum discount only when above zero.
+ */
+@Getter
+@Builder
+public class ProductSearchFilter {
+    private final String category;
+    private final String brand;
+    private final String color;
+    private final String size;
+    private final Boolean available;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final BigDecimal minDiscount;
+
+    public boolean matches(ProductSearchDocument document) {
+        if (!equalsIgnoringCase(category, document.getCategory())
+                || !equalsIgnoringCase(brand, document.getBrand())
+                || !equalsIgnoringCase(color, document.getColor())) {
+            return false;
+        }
+        if (hasText(size) && !size.matches("\\d+") && !size.equalsIgnoreCase(document.getSize())) {
+            return false;
+        }
+        if (available != null && available != document.isAvailable()) {
+            return false;
+        }
+        BigDecimal price = document.getPrice();
+        if (minPrice != null && (price == null || price.compareTo(BigDecimal.valueOf(minPrice)) < 0)) {
+            return false;
+        }
+        if (maxPrice != null && (price == null || price.compareTo(BigDecimal.valueOf(maxPrice)) > 0)) {
+            return false;
+        }
+        if (minDiscount != null && minDiscount.compareTo(BigDecimal.ZERO) > 0) {
+            BigDecimal discount = document.getDiscountPercentage();
+            return discount != null && discount.compareTo(minDiscount) >= 0;
+        }
+        return true;
+    }
+
+    // An unset filter matches anything; a set one never matches a missing value, as in SQL
+    private static boolean equalsIgnoringCase(String expected, String actual) {
+        return !hasText(expected) || expected.equalsIgnoreCase(actual);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
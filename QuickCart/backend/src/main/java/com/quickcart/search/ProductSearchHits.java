@@ -0,0 +1,16 @@
+package com.quickcart.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+// One page of index matches plus the exact number of matches, and facet counts when asked for
+@Getter
+@AllArgsConstructor
+public class ProductSearchHits {
+    private final List<ProductSearchDocument> documents;
+    private final long total;
+    private final Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,396 @@
+package com.quickcart.search;
+
+import com.quickcart.entity.Product;
+import com.quickcart.repository.ProductCursor;
+import com.quickcart.repository.ProductFacets;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product name, description, brand and category. It is
+ * the only place search terms are matched: it also holds each product's filter and sort
+ * columns, so a query is matched, filtered, counted and ranked here and SQL only loads
+ * the rows of the page being returned.
+ *
+ * Every query token must match (AND); the last token also matches as a prefix so
+ * search-as-you-type works. Scores add up per field with name weighted highest. A query
+ * walks the posting list of its rarest whole-word token and probes the others, keeping
+ * only the top {@code offset + limit} hits in a bounded heap, so no per-query copy of
+ * the postings is made. Prefix expansion is capped at {@code app.search.max-prefix-terms}.
+ *
+ * The index is built before the web server starts taking requests and then kept
+ * current by {@link #index(Product)} / {@link #remove(Long)}, which apply after commit.
+ */
+@Component
+public class ProductSearchIndex implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // Ahead of the web server's start phase (DEFAULT_PHASE - 2048), so no request sees an empty index
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 4f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    // A prefix hit counts for less than the whole word
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    // Best score first, then lowest id
+    private static final Comparator<Hit> BY_RELEVANCE =
+            Comparator.comparingDouble((Hit hit) -> -hit.score).thenComparing(hit -> hit.document.getId());
+
+    @Value("${app.search.max-prefix-terms:200}")
+    private int maxPrefixTerms;
+
+    @Value("${app.search.build-batch-size:1000}")
+    private int buildBatchSize;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // term -> (productId -> weight of the term in that product)
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    // productId -> its terms, so an update or delete can unlink the old postings
+    private final Map<Long, Set<String>> termsByProduct = new ConcurrentHashMap<>();
+    // productId -> the columns filters and sort orders read
+    private final Map<Long, ProductSearchDocument> documents = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        build();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void build() {
+        long start = System.currentTimeMillis();
+        long afterId = 0L;
+        int indexed = 0;
+        List<ProductSearchDocument> batch;
+        do {
+            batch = productRepository.findSearchDocuments(afterId, PageRequest.of(0, buildBatchSize));
+            for (ProductSearchDocument document : batch) {
+                put(document);
+                afterId = document.getId();
+            }
+            indexed += batch.size();
+        } while (batch.size() == buildBatchSize);
+
+        logger.info("Product search index built: {} products, {} terms in {} ms",
+                indexed, postings.size(), System.currentTimeMillis() - start);
+    }
+
+    // Re-indexes the product once the current transaction commits
+    public void index(Product product) {
+        ProductSearchDocument document = ProductSearchDocument.of(product);
+        TransactionUtils.afterCommit(() -> put(document));
+    }
+
+    public void remove(Long productId) {
+        TransactionUtils.afterCommit(() -> unlink(productId));
+    }
+
+    /**
+     * Offset page of the products matching every token of the query and the filter.
+     *
+     * @param order sort order of the page, one of {@link ProductCursor#SORTABLE_PROPERTIES};
+     *              null ranks by relevance
+     * @return the page, the exact number of matches, and facet counts over all matches
+     *         when {@code withFacets} is set (null otherwise)
+     */
+    public ProductSearchHits search(String query, ProductSearchFilter filter, Sort.Order order,
+                                    long offset, int limit, boolean withFacets) {
+        int keep = (int) Math.min(offset + limit, Integer.MAX_VALUE - 8);
+        TopHits hits = new TopHits(order == null ? BY_RELEVANCE : bySortKey(order), keep, withFacets);
+        scan(tokenize(query), filter::matches, hits);
+
+        List<ProductSearchDocument> ranked = hits.ranked();
+        List<ProductSearchDocument> page = offset >= ranked.size()
+                ? List.of()
+                : ranked.subList((int) offset, ranked.size());
+        return new ProductSearchHits(page, hits.total, withFacets ? ProductFacets.ordered(hits.facets) : null);
+    }
+
+    /**
+     * Keyset slice: up to {@code limit} matching products that sort after {@code after}
+     * (or from the start when null), in {@code order} with id as tie-breaker.
+     */
+    public List<ProductSearchDocument> searchAfter(String query, ProductSearchFilter filter, Sort.Order order,
+                                                   ProductCursor after, int limit) {
+        Comparator<Hit> sortOrder = bySortKey(order);
+        Predicate<ProductSearchDocument> accept = filter::matches;
+        if (after != null) {
+            accept = accept.and(document -> compareToCursor(document, order, after) > 0);
+        }
+        TopHits hits = new TopHits(sortOrder, limit, false);
+        scan(tokenize(query), accept, hits);
+        return hits.ranked();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("ready", running ? 1L : 0L);
+        stats.put("products", (long) documents.size());
+        stats.put("terms", (long) postings.size());
+        return stats;
+    }
+
+    private void scan(List<String> tokens, Predicate<ProductSearchDocument> accept, TopHits hits) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        int last = tokens.size() - 1;
+        List<Map<Long, Float>> required = new ArrayList<>(last);
+        for (int i = 0; i < last; i++) {
+            Map<Long, Float> termPostings = postings.get(tokens.get(i));
+            if (termPostings == null) {
+                return;
+            }
+            required.add(termPostings);
+        }
+        String prefix = tokens.get(last);
+        Map<Long, Float> exact = postings.get(prefix);
+        List<Map<Long, Float>> expansions = new ArrayList<>();
+        for (Map<Long, Float> termPostings : postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values()) {
+            if (expansions.size() == maxPrefixTerms) {
+                break;
+            }
+            expansions.add(termPostings);
+        }
+        if (exact == null && expansions.isEmpty()) {
+            return;
+        }
+
+        for (Long productId : candidates(required, exact, expansions)) {
+            float score = 0f;
+            boolean matched = true;
+            for (Map<Long, Float> termPostings : required) {
+                Float weight = termPostings.get(productId);
+                if (weight == null) {
+                    matched = false;
+                    break;
+                }
+                score += weight;
+            }
+            float prefixScore = matched ? prefixScore(productId, exact, expansions) : 0f;
+            if (prefixScore == 0f) {
+                continue;
+            }
+            ProductSearchDocument document = documents.get(productId);
+            if (document != null && accept.test(document)) {
+                hits.add(document, score + prefixScore);
+            }
+        }
+    }
+
+    // Ids to probe: the shortest whole-word posting list; only a lone prefix token needs its expansions merged
+    private Collection<Long> candidates(List<Map<Long, Float>> required, Map<Long, Float> exact,
+                                        List<Map<Long, Float>> expansions) {
+        Map<Long, Float> shortest = required.stream().min(Comparator.comparingInt(Map::size)).orElse(null);
+        if (shortest != null) {
+            return shortest.keySet();
+        }
+        if (expansions.isEmpty()) {
+            return exact.keySet();
+        }
+        if (exact == null && expansions.size() == 1) {
+            return expansions.get(0).keySet();
+        }
+        Set<Long> merged = new HashSet<>(exact != null ? exact.keySet() : Set.of());
+        expansions.forEach(termPostings -> merged.addAll(termPostings.keySet()));
+        return merged;
+    }
+
+    private float prefixScore(Long productId, Map<Long, Float> exact, List<Map<Long, Float>> expansions) {
+        float best = 0f;
+        if (exact != null) {
+            best = exact.getOrDefault(productId, 0f);
+        }
+        for (Map<Long, Float> termPostings : expansions) {
+            Float weight = termPostings.get(productId);
+            if (weight != null) {
+                best = Math.max(best, weight * PREFIX_FACTOR);
+            }
+        }
+        return best;
+    }
+
+    private static Comparator<Hit> bySortKey(Sort.Order order) {
+        Comparator<Hit> ascending = (left, right) -> {
+            int compared = compareKeys(sortKey(left.document, order), sortKey(right.document, order));
+            return compared != 0 ? compared : left.document.getId().compareTo(right.document.getId());
+        };
+        return order.isAscending() ? ascending : ascending.reversed();
+    }
+
+    // Positive when the document sorts after the cursor in the cursor's direction
+    private static int compareToCursor(ProductSearchDocument document, Sort.Order order, ProductCursor after) {
+        int compared = compareKeys(sortKey(document, order), after.getValue());
+        if (compared == 0) {
+            compared = document.getId().compareTo(after.getId());
+        }
+        return order.isAscending() ? compared : -compared;
+    }
+
+    private static Comparable<?> sortKey(ProductSearchDocument document, Sort.Order order) {
+        return switch (order.getProperty()) {
+            case "price" -> document.getPrice();
+            case "name" -> document.getName();
+            default -> document.getCreatedAt();
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Comparable left, Comparable right) {
+        if (left == null || right == null) {
+            return left == right ? 0 : left == null ? 1 : -1;
+        }
+        return left.compareTo(right);
+    }
+
+    private synchronized void put(ProductSearchDocument document) {
+        unlink(document.getId());
+
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, document.getName(), NAME_WEIGHT);
+        addField(weights, document.getBrand(), BRAND_WEIGHT);
+        addField(weights, document.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, document.getDescription(), DESCRIPTION_WEIGHT);
+
+        documents.put(document.getId(), document);
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(document.getId(), weight));
+        termsByProduct.put(document.getId(), weights.keySet());
+    }
+
+    private synchronized void unlink(Long productId) {
+        documents.remove(productId);
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, termPostings) -> {
+                termPostings.remove(productId);
+                return termPostings.isEmpty() ? null : termPostings;
+            });
+        }
+    }
+
+    private void addField(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .forEach(tokens::add);
+        return new ArrayList<>(tokens);
+    }
+
+    private record Hit(ProductSearchDocument document, float score) {
+    }
+
+    // Counts every match, keeps the best `keep` of them, and tallies facets when asked to
+    private static final class TopHits {
+
+        private final Comparator<Hit> order;
+        private final int keep;
+        // Worst kept hit at the head, so a better one can replace it
+        private final PriorityQueue<Hit> heap;
+        private final Map<String, Map<String, Long>> facets;
+        private long total;
+
+        TopHits(Comparator<Hit> order, int keep, boolean withFacets) {
+            this.order = order;
+            this.keep = keep;
+            this.heap = new PriorityQueue<>(order.reversed());
+            this.facets = withFacets ? new HashMap<>() : null;
+        }
+
+        void add(ProductSearchDocument document, float score) {
+            total++;
+            if (facets != null) {
+                count("category", document.getCategory());
+                count("brand", document.getBrand());
+                count("color", document.getColor());
+                count("size", document.getSize());
+                count("price", ProductFacets.priceBucket(document.getPrice()));
+                count("discount", ProductFacets.discountBucket(document.getDiscountPercentage()));
+            }
+            if (keep == 0) {
+                return;
+            }
+            Hit hit = new Hit(document, score);
+            if (heap.size() < keep) {
+                heap.add(hit);
+            } else if (order.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+
+        List<ProductSearchDocument> ranked() {
+            List<Hit> hits = new ArrayList<>(heap);
+            hits.sort(order);
+            return hits.stream().map(Hit::document).toList();
+        }
+
+        private void count(String facet, String value) {
+            if (value != null) {
+                facets.computeIfAbsent(facet, f -> new HashMap<>()).merge(value, 1L, Long::sum);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.quickcart.security;
 
+import com.quickcart.entity.User;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,14 +27,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private JwtTokenProvider tokenProvider;
-    private CustomUserDetailsService customUserDetailsService;
+    private UserPrincipalCache userPrincipalCache;
 
     public void setTokenProvider(JwtTokenProvider tokenProvider) {
         this.tokenProvider = tokenProvider;
     }
 
-    public void setCustomUserDetailsService(CustomUserDetailsService customUserDetailsService) {
-        this.customUserDetailsService = customUserDetailsService;
+    public void setUserPrincipalCache(UserPrincipalCache userPrincipalCache) {
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -53,24 +54,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             if (StringUtils.hasText(jwt)) {
                 try {
-                    if (tokenProvider.validateToken(jwt)) {
-                        String username = tokenProvider.getUsernameFromJWT(jwt);
-                        UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
-                        
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        logger.debug("Set authentication in security context for user: {}", username);
-                    } else {
-                        logger.debug("Invalid JWT token");
+                    // One signature verification per request; failures land in the catch blocks below
+                    JwtClaims claims = tokenProvider.parseAndValidate(jwt);
+                    String username = claims.getUsername();
+                    User.Role role = User.Role.valueOf(claims.getRole());
+
+                    // Principal comes from the verified claims, not a user lookup per request
+                    UserDetails userDetails = userPrincipalCache.getPrincipal(claims.getUserId(), username, role);
+                    if (userDetails == null) {
+                        logger.debug("User for JWT token no longer exists: {}", username);
                         if (!requestPath.equals("/api/auth/refresh-token")) {
-                            sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
-                                "Invalid token", "The provided token is invalid");
+                            sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
+                                "Invalid token", "The user for this token no longer exists");
                             return;
                         }
+                        filterChain.doFilter(request, response);
+                        return;
                     }
+
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    logger.debug("Set authentication in security context for user: {}", username);
                 } catch (ExpiredJwtException ex) {
                     logger.debug("Expired JWT token");
                     if (!requestPath.equals("/api/auth/refresh-token")) {
@@ -0,0 +1,61 @@
+package com.quickcart.security;
+
+import java.util.Date;
+
+/**
+ * Immutable view of a token whose signature, expiry and required claims have
+ * already been checked by {@link JwtTokenProvider#parseAndValidate(String)}.
+ */
+public final class JwtClaims {
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final String type;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public JwtClaims(String username, Long userId, String role, String type, Date issuedAt, Date expiration) {
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.type = type;
+        this.issuedAt = issuedAt != null ? new Date(issuedAt.getTime()) : null;
+        this.expiration = new Date(expiration.getTime());
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt != null ? new Date(issuedAt.getTime()) : null;
+    }
+
+    public Date getExpiration() {
+        return new Date(expiration.getTime());
+    }
+
+    public long getExpirationMillis() {
+        return expiration.getTime();
+    }
+
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+}
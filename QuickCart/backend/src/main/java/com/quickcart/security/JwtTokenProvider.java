@@ -2,6 +2,8 @@ package com.quickcart.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -30,8 +32,21 @@ public class JwtTokenProvider {
     @Value("${app.jwtRefreshExpirationInMs:604800000}") // 7 days default
     private long jwtRefreshExpirationInMs;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     private Key signingKey;
 
+    // Immutable and thread-safe once built, so one instance serves every request
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(getSigningKey())
+                .build();
+    }
+
     private Key getSigningKey() {
         if (signingKey == null) {
             try {
@@ -49,6 +64,10 @@ public class JwtTokenProvider {
         return signingKey;
     }
 
+    private Claims parseClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
     public String generateToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         Date now = new Date();
@@ -85,72 +104,58 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the signature and expiry and reads every claim the application uses,
+     * so callers never have to parse the same token twice. Tokens seen before are
+     * answered from the {@link VerifiedTokenCache} until they expire.
+     *
+     * @throws JwtException if the token is invalid, expired or missing a required claim
+     */
+    public JwtClaims parseAndValidate(String token) {
+        JwtClaims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
 
-        return claims.getSubject();
+        Claims claims = parseClaims(token);
+
+        String tokenType = claims.get("type", String.class);
+        if (tokenType == null) {
+            throw new MalformedJwtException("JWT token is missing type claim");
+        }
+
+        Long userId = claims.get("userId", Long.class);
+        String role = claims.get("role", String.class);
+        if (claims.getSubject() == null || userId == null || role == null) {
+            throw new MalformedJwtException("JWT token is missing required claims");
+        }
+
+        JwtClaims verified = new JwtClaims(claims.getSubject(), userId, role, tokenType,
+                claims.getIssuedAt(), claims.getExpiration());
+        verifiedTokenCache.put(token, verified);
+        return verified;
     }
 
-    public String getRoleFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public String getUsernameFromJWT(String token) {
+        return parseClaims(token).getSubject();
+    }
 
-        return claims.get("role", String.class);
+    public String getRoleFromJWT(String token) {
+        return parseClaims(token).get("role", String.class);
     }
 
     public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("userId", Long.class);
+        return parseClaims(token).get("userId", Long.class);
     }
 
     public boolean validateToken(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            String tokenType = claims.get("type", String.class);
-            if (tokenType == null) {
-                logger.error("JWT token is missing type claim");
-                return false;
-            }
-
-
-            if ("refresh".equals(tokenType)) {
-                return !claims.getExpiration().before(new Date());
-            }
-
-
-            if (claims.get("userId") == null || claims.get("role") == null) {
-                logger.error("JWT token is missing required claims");
-                return false;
-            }
-
-
-            if (claims.getExpiration().before(new Date())) {
-                logger.error("JWT token is expired");
-                return false;
-            }
-
+            parseAndValidate(token);
             return true;
         } catch (SignatureException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
-            logger.error("Invalid JWT token");
+            logger.error("Invalid JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
             logger.error("Expired JWT token");
         } catch (UnsupportedJwtException ex) {
@@ -163,11 +168,7 @@ public class JwtTokenProvider {
 
     public boolean validateRefreshToken(String refreshToken) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(refreshToken)
-                .getBody();
+            Claims claims = parseClaims(refreshToken);
             
             String tokenType = claims.get("type", String.class);
             if (!"refresh".equals(tokenType)) {
@@ -0,0 +1,27 @@
+package com.quickcart.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * Authentication attached to a STOMP session. Its name is the user id rather than the
+ * username, so user destinations can be addressed from ids alone (notifications carry
+ * only the recipient's id) and survive a username change.
+ */
+public class StompAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private final Long userId;
+
+    public StompAuthenticationToken(UserPrincipal principal) {
+        super(principal, null, principal.getAuthorities());
+        this.userId = principal.getId();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(userId);
+    }
+}
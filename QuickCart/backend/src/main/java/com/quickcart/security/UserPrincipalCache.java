@@ -0,0 +1,110 @@
+package com.quickcart.security;
+
+import com.quickcart.entity.User;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds {@link UserPrincipal}s for verified access tokens without a database round
+ * trip per request. Id, username and role come from the token itself; the remaining
+ * fields are kept here for a short TTL and reloaded by primary key on a miss.
+ *
+ * Entries are invalidated when a user is updated or deleted, so a deleted account
+ * stops authenticating on its next request rather than when its token expires.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPrincipalCache.class);
+
+    @Value("${app.security.principal-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Long, CachedUser> users = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private record CachedUser(String username, String email, long expiresAt) {
+    }
+
+    /**
+     * @return the principal, or null when the user no longer exists or the token was
+     *         issued for a username the account no longer has
+     */
+    public UserPrincipal getPrincipal(Long userId, String username, User.Role role) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = users.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null) {
+                logger.debug("User {} from token no longer exists", userId);
+                users.remove(userId);
+                return null;
+            }
+            cached = new CachedUser(user.getUsername(), user.getEmail(), now + ttlMs);
+            store(userId, cached, now);
+        }
+
+        if (!cached.username().equals(username)) {
+            logger.debug("Token subject {} does not match current username of user {}", username, userId);
+            return null;
+        }
+
+        return new UserPrincipal(
+                userId,
+                username,
+                cached.email(),
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()))
+        );
+    }
+
+    public void invalidate(Long userId) {
+        users.remove(userId);
+        TransactionUtils.afterCommit(() -> users.remove(userId));
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) users.size());
+        stats.put("maxSize", (long) maxSize);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private void store(Long userId, CachedUser cachedUser, long now) {
+        if (users.size() >= maxSize) {
+            users.values().removeIf(entry -> entry.expiresAt() <= now);
+            Iterator<Long> ids = users.keySet().iterator();
+            while (users.size() >= maxSize && ids.hasNext()) {
+                ids.next();
+                ids.remove();
+            }
+        }
+        users.put(userId, cachedUser);
+    }
+}
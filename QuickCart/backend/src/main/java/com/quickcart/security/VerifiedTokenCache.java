@@ -0,0 +1,127 @@
+package com.quickcart.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of tokens that already passed signature verification, keyed by a
+ * SHA-256 digest of the full compact token. A client re-sends the same access token
+ * for its whole lifetime, so a hit replaces the HMAC-SHA512 check and JSON decode
+ * with one digest and a map lookup.
+ *
+ * The key covers the signature, so a tampered token can never hit an entry. Entries
+ * are dropped once the token expires. The signing key is only read at startup and
+ * the cache lives in memory, so rotating app.jwtSecret (a restart) starts empty.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @Value("${app.jwt.verified-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jwt.verified-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, JwtClaims> tokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the verified claims, or null when the token is unknown or has expired
+     */
+    public JwtClaims get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = digest(token);
+        JwtClaims claims = tokens.get(key);
+        if (claims == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (claims.getExpirationMillis() <= System.currentTimeMillis()) {
+            // Let the caller re-verify so the expiry surfaces as ExpiredJwtException
+            tokens.remove(key);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return claims;
+    }
+
+    public void put(String token, JwtClaims claims) {
+        if (!enabled) {
+            return;
+        }
+        if (tokens.size() >= maxSize) {
+            sweepExpired();
+            Iterator<String> keys = tokens.keySet().iterator();
+            while (tokens.size() >= maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        tokens.put(digest(token), claims);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.verified-cache.sweep-ms:60000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        int before = tokens.size();
+        tokens.values().removeIf(claims -> claims.getExpirationMillis() <= now);
+        int expired = before - tokens.size();
+        if (expired > 0) {
+            expirations.addAndGet(expired);
+            logger.debug("Expired {} verified tokens", expired);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled ? 1L : 0L);
+        stats.put("size", (long) tokens.size());
+        stats.put("maxSize", (long) maxSize);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("expirations", expirations.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
@@ -2,14 +2,20 @@
 package com.quickcart.service;
 
 import com.quickcart.entity.Cart;
+import com.quickcart.payload.CartDeltaDTO;
 import com.quickcart.payload.CartItemRequest;
+import com.quickcart.payload.CartResponseDTO;
+
+import java.util.List;
 
 public interface CartService {
     Cart getCartByUserId(Long userId);
+    CartResponseDTO getCartView(Long userId);
     Cart getOrCreateCartByUserId(Long userId);  // <-- new method
-    Cart addItemToCart(Long userId, CartItemRequest request);
-    Cart updateItemQuantity(Long userId, Long itemId, int quantity);
-    Cart removeItemFromCart(Long userId, Long itemId);
+    CartDeltaDTO addItemToCart(Long userId, CartItemRequest request);
+    CartResponseDTO addItemsToCart(Long userId, List<CartItemRequest> requests);
+    CartDeltaDTO updateItemQuantity(Long userId, Long itemId, int quantity);
+    CartDeltaDTO removeItemFromCart(Long userId, Long itemId);
     void clearCart(Long userId);
 }
 
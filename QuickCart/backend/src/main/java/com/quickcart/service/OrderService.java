@@ -2,15 +2,19 @@ package com.quickcart.service;
 
 import com.quickcart.entity.Order;
 import com.quickcart.entity.User;
+import com.quickcart.payload.CheckoutRequest;
 import com.quickcart.payload.OrderRequest;
 import com.quickcart.payload.SellerEarningsDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 public interface OrderService {
     Order createOrder(OrderRequest orderRequest);
+    Order checkoutCart(Long userId, CheckoutRequest checkoutRequest, String idempotencyKey);
+    Optional<Order> findOrderByIdempotencyKey(Long userId, String idempotencyKey);
     Page<Order> getOrdersByUser(User user, Pageable pageable);
     Page<Order> getOrdersBySeller(User seller, Pageable pageable);
     Page<Order> getOrdersBySellerAndStatus(User seller, Order.OrderStatus status, Pageable pageable);
@@ -18,4 +22,6 @@ public interface OrderService {
     Order getOrderByIdForSeller(Long orderId, User seller);
     Order updateOrderStatus(Long orderId, Order.OrderStatus newStatus, User seller);
     Double getSellerEarningsBetween(User seller, LocalDateTime from, LocalDateTime to);
+    // Today, this week (from Sunday), this month and this year, from the daily rollup
+    SellerEarningsDto getSellerEarnings(User seller);
 } 
\ No newline at end of file
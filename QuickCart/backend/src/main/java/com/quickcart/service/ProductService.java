@@ -5,6 +5,7 @@ import com.quickcart.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
+import com.quickcart.payload.CursorPage;
 import com.quickcart.payload.ProductResponseDTO;
 import com.quickcart.payload.ProductRequestDTO;
 import java.util.Map;
@@ -26,8 +27,25 @@ public interface ProductService {
         Double maxPrice,
         java.math.BigDecimal minDiscount,
         String sortBy, // e.g., "price_asc", "price_desc", "name_asc", "createdAt_desc"
+        boolean includeFacets, // returns a FacetedPage with counts for the whole result set
         Pageable pageable
     );
+    // Keyset variants: no count query; cursor is null or empty for the first slice
+    CursorPage<ProductResponseDTO> getAllProductsAfter(String cursor, String sortBy, int size);
+    CursorPage<ProductResponseDTO> searchAndFilterProductsAfter(
+        String searchTerm,
+        String category,
+        String brand,
+        String color,
+        String size,
+        Boolean available,
+        Double minPrice,
+        Double maxPrice,
+        java.math.BigDecimal minDiscount,
+        String sortBy,
+        String cursor,
+        int pageSize
+    );
     ProductResponseDTO updateProduct(Long productId, ProductRequestDTO productRequestDTO, MultipartFile imageFile, User seller);
     void deleteProduct(Long productId, User seller);
     Page<ProductResponseDTO> getProductsBySeller(User seller, Pageable pageable);
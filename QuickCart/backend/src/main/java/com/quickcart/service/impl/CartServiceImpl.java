@@ -1,26 +1,50 @@
 
 package com.quickcart.service.impl;
 
+import com.quickcart.cache.CartSnapshotCache;
+import com.quickcart.cache.ProductCache;
 import com.quickcart.entity.Cart;
 import com.quickcart.entity.CartItem;
 import com.quickcart.entity.Product;
 import com.quickcart.entity.User;
+import com.quickcart.exception.BadRequestException;
 import com.quickcart.exception.ResourceNotFoundException;
 import com.quickcart.exception.UnauthorizedOperationException;
+import com.quickcart.inventory.StockReservationLedger;
+import com.quickcart.payload.CartDeltaDTO;
 import com.quickcart.payload.CartItemRequest;
+import com.quickcart.payload.CartMapper;
+import com.quickcart.payload.CartResponseDTO;
 import com.quickcart.repository.CartItemRepository;
 import com.quickcart.repository.CartRepository;
+import com.quickcart.repository.CartSlot;
+import com.quickcart.repository.CartTotals;
 import com.quickcart.repository.ProductRepository;
 import com.quickcart.repository.UserRepository;
 import com.quickcart.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class CartServiceImpl implements CartService {
 
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE cart_items SET quantity = ?, updated_at = ? WHERE id = ?";
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -33,6 +57,21 @@ public class CartServiceImpl implements CartService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    @Autowired
+    private CartSnapshotCache cartSnapshotCache;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.cart.batch-max-items:100}")
+    private int batchMaxItems;
+
     @Override
     @Transactional(readOnly = true)
     public Cart getCartByUserId(Long userId) {
@@ -40,6 +79,25 @@ public class CartServiceImpl implements CartService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
     }
 
+    // One projection query, or none when the user's snapshot is still current
+    @Override
+    @Transactional(readOnly = true)
+    public CartResponseDTO getCartView(Long userId) {
+        CartResponseDTO cached = cartSnapshotCache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cartSnapshotCache.currentGeneration();
+        long productGeneration = productCache.currentGeneration();
+        CartResponseDTO cart = CartMapper.toDto(cartRepository.findCartLines(userId));
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart not found for user: " + userId);
+        }
+        cartSnapshotCache.put(userId, cart, generation, productGeneration);
+        return cart;
+    }
+
     @Override
     @Transactional
     public Cart getOrCreateCartByUserId(Long userId) {
@@ -50,13 +108,55 @@ public class CartServiceImpl implements CartService {
                 .orElseGet(() -> {
                     Cart newCart = new Cart();
                     newCart.setUser(user);
+                    cartSnapshotCache.invalidate(userId);
                     return cartRepository.save(newCart);
                 });
     }
 
+    // A fixed number of statements however big the cart is: the cart slot, the product,
+    // one write for the line and one aggregate for the totals. The cart is never reloaded.
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
-    public Cart addItemToCart(Long userId, CartItemRequest request) {
+    public CartDeltaDTO addItemToCart(Long userId, CartItemRequest request) {
+        CartSlot slot = cartRepository.findSlot(userId, request.getProductId())
+                .orElseGet(() -> new CartSlot(createCart(userId).getId(), null, null, null, null));
+
+        Product product = productRepository.findForCart(request.getProductId())
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + request.getProductId()));
+
+        if (!product.isAvailable() || product.getStock() < request.getQuantity()) {
+            throw new UnauthorizedOperationException("Product is not available in the requested quantity");
+        }
+
+        boolean existing = slot.itemId() != null;
+        int newQuantity = existing ? slot.quantity() + request.getQuantity() : request.getQuantity();
+        // Hold the stock for this cart so other shoppers cannot claim it meanwhile
+        if (!stockReservationLedger.hold(product.getId(), userId, newQuantity, product.getStock())) {
+            throw new UnauthorizedOperationException(existing
+                    ? "Requested quantity exceeds available stock"
+                    : "Product is not available in the requested quantity");
+        }
+
+        CartItem item = new CartItem();
+        item.setProduct(product);
+        item.setQuantity(newQuantity);
+        if (existing) {
+            cartItemRepository.updateQuantity(slot.itemId(), newQuantity);
+            item.setId(slot.itemId());
+            item.setCreatedAt(slot.itemCreatedAt());
+            item.setUpdatedAt(LocalDateTime.now());
+        } else {
+            // The unique (cart_id, product_id) key turns a concurrent duplicate add into an error
+            item.setCart(cartRepository.getReferenceById(slot.cartId()));
+            cartItemRepository.save(item);
+        }
+        cartSnapshotCache.invalidate(userId);
+
+        return CartMapper.toDelta(slot.cartId(), item, null, cartRepository.findTotals(slot.cartId()));
+    }
+
+    // First add for a user: the only path that loads the user
+    private Cart createCart(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
@@ -64,93 +164,145 @@ public class CartServiceImpl implements CartService {
             throw new UnauthorizedOperationException("Only users can add items to cart");
         }
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    return cartRepository.save(newCart);
-                });
+        Cart cart = new Cart();
+        cart.setUser(user);
+        return cartRepository.save(cart);
+    }
 
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + request.getProductId()));
+    // Statements stay fixed however many items come in: the cart slots, the products, one JDBC
+    // batch each for new and existing lines and the cart view. Nothing is held or written
+    // unless every item passes the stock check.
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED)
+    public CartResponseDTO addItemsToCart(Long userId, List<CartItemRequest> requests) {
+        Map<Long, Integer> requested = mergeBatch(requests);
 
-        if (!product.isAvailable() || product.getStock() < request.getQuantity()) {
-            throw new UnauthorizedOperationException("Product is not available in the requested quantity");
+        List<CartSlot> slots = cartRepository.findSlots(userId, requested.keySet());
+        Long cartId = slots.isEmpty() ? createCart(userId).getId() : slots.get(0).cartId();
+        Map<Long, CartSlot> existingLines = new HashMap<>();
+        for (CartSlot slot : slots) {
+            if (slot.itemId() != null) {
+                existingLines.put(slot.productId(), slot);
+            }
         }
 
-        // Find existing cart item
-        CartItem existingItem = cartItemRepository.findByCartAndProduct(cart, product);
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllForCart(requested.keySet()).forEach(product -> products.put(product.getId(), product));
 
-        if (existingItem != null) {
-            // Update quantity of existing item
-            int newQuantity = existingItem.getQuantity() + request.getQuantity();
-            if (newQuantity > product.getStock()) {
-                throw new UnauthorizedOperationException("Requested quantity exceeds available stock");
+        Map<Long, Integer> newQuantities = new LinkedHashMap<>();
+        requested.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
             }
-            existingItem.setQuantity(newQuantity);
-            cartItemRepository.save(existingItem);
-        } else {
-            // Create new cart item
-            CartItem newItem = new CartItem();
-            newItem.setCart(cart);
-            newItem.setProduct(product);
-            newItem.setQuantity(request.getQuantity());
-            cartItemRepository.save(newItem);
+            CartSlot line = existingLines.get(productId);
+            int newQuantity = (line != null ? line.quantity() : 0) + quantity;
+            if (!product.isAvailable()
+                    || product.getStock() - stockReservationLedger.heldByOthers(productId, userId) < newQuantity) {
+                throw new UnauthorizedOperationException(product.getName() + " is not available in the requested quantity");
+            }
+            newQuantities.put(productId, newQuantity);
+        });
+        holdAll(userId, newQuantities, products);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        newQuantities.forEach((productId, quantity) -> {
+            CartSlot line = existingLines.get(productId);
+            if (line != null) {
+                updates.add(new Object[]{quantity, now, line.itemId()});
+            } else {
+                inserts.add(new Object[]{cartId, productId, quantity, now, now});
+            }
+        });
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
         }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ITEM_SQL, updates);
+        }
+        cartSnapshotCache.invalidate(userId);
 
-        // Refresh cart from database to get updated items
-        return cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found after update"));
+        return CartMapper.toDto(cartRepository.findCartLines(userId));
+    }
+
+    // Same product twice in one batch adds up, as two single adds would
+    private Map<Long, Integer> mergeBatch(List<CartItemRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("At least one cart item is required");
+        }
+        if (requests.size() > batchMaxItems) {
+            throw new BadRequestException("At most " + batchMaxItems + " cart items can be added at once");
+        }
+        Map<Long, Integer> merged = new LinkedHashMap<>();
+        for (CartItemRequest request : requests) {
+            if (request == null || request.getProductId() == null || request.getQuantity() < 1) {
+                throw new BadRequestException("Each cart item needs a product id and a quantity of at least 1");
+            }
+            merged.merge(request.getProductId(), request.getQuantity(), Integer::sum);
+        }
+        return merged;
+    }
+
+    // A hold can still lose a race after the check. Throwing rolls the transaction back,
+    // and the ledger then restores whatever holds this batch had already replaced.
+    private void holdAll(Long userId, Map<Long, Integer> newQuantities, Map<Long, Product> products) {
+        newQuantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (!stockReservationLedger.hold(productId, userId, quantity, product.getStock())) {
+                throw new UnauthorizedOperationException(product.getName() + " is not available in the requested quantity");
+            }
+        });
     }
 
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
-    public Cart updateItemQuantity(Long userId, Long itemId, int quantity) {
-        Cart cart = getCartByUserId(userId);
-        CartItem cartItem = cartItemRepository.findById(itemId)
+    public CartDeltaDTO updateItemQuantity(Long userId, Long itemId, int quantity) {
+        CartItem cartItem = cartItemRepository.findOwnedItem(itemId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + itemId));
 
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new UnauthorizedOperationException("Cart item does not belong to the user's cart");
+        if (quantity <= 0) {
+            return removeLine(userId, cartItem);
         }
 
-        if (quantity <= 0) {
-            cartItemRepository.delete(cartItem);
-        } else {
-            if (quantity > cartItem.getProduct().getStock()) {
-                throw new UnauthorizedOperationException("Requested quantity exceeds available stock");
-            }
-            cartItem.setQuantity(quantity);
-            cartItemRepository.save(cartItem);
+        Product product = cartItem.getProduct();
+        if (!stockReservationLedger.hold(product.getId(), userId, quantity, product.getStock())) {
+            throw new UnauthorizedOperationException("Requested quantity exceeds available stock");
         }
+        cartItem.setQuantity(quantity);
+        cartSnapshotCache.invalidate(userId);
 
-        return cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found after update"));
+        // The totals query flushes the new quantity first
+        Long cartId = cartItem.getCart().getId();
+        CartTotals totals = cartRepository.findTotals(cartId);
+        return CartMapper.toDelta(cartId, cartItem, null, totals);
     }
 
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
-    public Cart removeItemFromCart(Long userId, Long itemId) {
-        Cart cart = getCartByUserId(userId);
-        CartItem cartItem = cartItemRepository.findById(itemId)
+    public CartDeltaDTO removeItemFromCart(Long userId, Long itemId) {
+        CartItem cartItem = cartItemRepository.findOwnedItem(itemId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + itemId));
 
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new UnauthorizedOperationException("Cart item does not belong to the user's cart");
-        }
+        return removeLine(userId, cartItem);
+    }
 
-        cart.removeCartItem(cartItem);  // Use the Cart entity's method
+    private CartDeltaDTO removeLine(Long userId, CartItem cartItem) {
+        Long cartId = cartItem.getCart().getId();
         cartItemRepository.delete(cartItem);
-        cartRepository.flush();  // Force a flush
+        stockReservationLedger.release(cartItem.getProduct().getId(), userId);
+        cartSnapshotCache.invalidate(userId);
 
-        return cart;
+        return CartMapper.toDelta(cartId, null, cartItem.getId(), cartRepository.findTotals(cartId));
     }
 
+    // One bulk delete; the cart's items are never loaded
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
     public void clearCart(Long userId) {
-        Cart cart = getCartByUserId(userId);
-        cartItemRepository.deleteAllByCart(cart);
+        cartItemRepository.deleteAllByUserId(userId);
+        stockReservationLedger.releaseAll(userId);
+        cartSnapshotCache.invalidate(userId);
     }
 }
-
@@ -1,26 +1,40 @@
 package com.quickcart.service.impl;
 
+import com.quickcart.cache.CartSnapshotCache;
+import com.quickcart.cache.ProductCache;
 import com.quickcart.entity.*;
 import com.quickcart.entity.Order.OrderStatus;
+import com.quickcart.exception.BadRequestException;
 import com.quickcart.exception.ResourceNotFoundException;
 import com.quickcart.exception.UnauthorizedOperationException;
 import com.quickcart.exception.InsufficientStockException;
+import com.quickcart.inventory.StockReservationLedger;
+import com.quickcart.messaging.RealtimePushService;
+import com.quickcart.payload.CheckoutRequest;
 import com.quickcart.payload.OrderRequest;
+import com.quickcart.payload.SellerEarningsDto;
 import com.quickcart.repository.*;
 import com.quickcart.service.CartService;
 import com.quickcart.service.OrderService;
 import com.quickcart.service.NotificationService;
+import com.quickcart.util.TransactionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -50,12 +64,68 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CartSnapshotCache cartSnapshotCache;
+
+    @Autowired
+    private SellerOrderRepository sellerOrderRepository;
+
+    @Autowired
+    private SellerDailyEarningsRepository sellerDailyEarningsRepository;
+
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    @Autowired
+    private RealtimePushService realtimePushService;
+
     @Override
     @Transactional
     public Order createOrder(OrderRequest orderRequest) {
         User user = userRepository.findByUsername(SecurityContextHolder.getContext().getAuthentication().getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        return placeOrder(user, orderRequest, null);
+    }
+
+    // The cart is read in one query and becomes the order's items; nothing is resent by the client
+    @Override
+    @Transactional
+    public Order checkoutCart(Long userId, CheckoutRequest checkoutRequest, String idempotencyKey) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        List<OrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (CartLine line : cartRepository.findCartLines(userId)) {
+            if (line.itemId() == null) {
+                continue; // the single row of an empty cart
+            }
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setProductId(line.productId());
+            item.setQuantity(line.quantity());
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            throw new BadRequestException("Your cart is empty. Please add items before placing an order.");
+        }
+
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setShippingAddress(checkoutRequest.getShippingAddress());
+        orderRequest.setPaymentMethod(checkoutRequest.getPaymentMethod());
+        orderRequest.setItems(items);
+        return placeOrder(user, orderRequest, idempotencyKey);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Order> findOrderByIdempotencyKey(Long userId, String idempotencyKey) {
+        return orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+    }
+
+    private Order placeOrder(User user, OrderRequest orderRequest, String idempotencyKey) {
         logger.info("Creating order for user: {}", user.getUsername());
 
         // Create a new order
@@ -64,6 +134,7 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(OrderStatus.PENDING);
         order.setShippingAddress(orderRequest.getShippingAddress());
         order.setPaymentMethod(orderRequest.getPaymentMethod());
+        order.setIdempotencyKey(idempotencyKey);
         LocalDateTime now = LocalDateTime.now();
         order.setOrderDate(now);
         order.setCreatedAt(now);
@@ -71,10 +142,22 @@ public class OrderServiceImpl implements OrderService {
         // Process order items and update product stock
         List<OrderItem> orderItems = new ArrayList<>();
         BigDecimal totalAmount = BigDecimal.ZERO;
+        Map<Long, Integer> stockDecrements = new LinkedHashMap<>();
+        Map<Long, Integer> reservedStock = new HashMap<>();
+        Map<Long, String> productNames = new HashMap<>();
+
+        // Fetch all products of the order at once instead of one findById per line
+        Set<Long> productIds = orderRequest.getItems().stream()
+                .map(OrderRequest.OrderItemRequest::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Product> productsById = productRepository.findAllWithSellerByIdIn(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
 
         for (OrderRequest.OrderItemRequest itemRequest : orderRequest.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", itemRequest.getProductId()));
+            Product product = productsById.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product", "id", itemRequest.getProductId());
+            }
 
             // Validate product stock
             if (product.getStock() < 0) {
@@ -90,15 +173,17 @@ public class OrderServiceImpl implements OrderService {
                 throw new RuntimeException("Invalid quantity requested for product: " + product.getName());
             }
 
-            // Check if enough stock is available
-            logger.info("Checking stock for product: {} (ID: {}), Requested quantity: {}, Available stock: {}",
-                product.getName(), product.getId(), itemRequest.getQuantity(), product.getStock());
+            // Check if enough stock is available, leaving what other carts are holding
+            int reservedByOthers = stockReservationLedger.heldByOthers(product.getId(), user.getId());
+            int availableStock = product.getStock() - reservedByOthers;
+            logger.info("Checking stock for product: {} (ID: {}), Requested quantity: {}, Available stock: {}, Held by others: {}",
+                product.getName(), product.getId(), itemRequest.getQuantity(), product.getStock(), reservedByOthers);
 
-            if (product.getStock() < itemRequest.getQuantity()) {
+            if (availableStock < itemRequest.getQuantity()) {
                 logger.warn("Insufficient stock for product: {} (ID: {}). Requested: {}, Available: {}, Comparison: {} < {}",
                     product.getName(), product.getId(), itemRequest.getQuantity(),
                     product.getStock(),
-                    product.getStock(),
+                    availableStock,
                     itemRequest.getQuantity());
                 throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
             }
@@ -115,23 +200,43 @@ public class OrderServiceImpl implements OrderService {
             // Calculate total amount
             totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
 
-            // Update product stock
-            int newStock = product.getStock() - itemRequest.getQuantity();
-            logger.info("Updating stock for product: {} (ID: {}). Old stock: {}, New stock: {}",
-                product.getName(), product.getId(), product.getStock(), newStock);
-            product.setStock(newStock);
-            productRepository.save(product);
+            // Stock is taken below in one guarded batch, never by saving the loaded row
+            stockDecrements.merge(product.getId(), itemRequest.getQuantity(), Integer::sum);
+            reservedStock.put(product.getId(), reservedByOthers);
+            productNames.put(product.getId(), product.getName());
+        }
+
+        // Update product stock; a failed guard means a concurrent order took the stock first
+        List<Long> insufficient = productRepository.decrementStock(stockDecrements, reservedStock);
+        if (!insufficient.isEmpty()) {
+            String names = insufficient.stream().map(productNames::get).collect(Collectors.joining(", "));
+            logger.warn("Insufficient stock at decrement for products: {} (IDs: {})", names, insufficient);
+            throw new InsufficientStockException("Insufficient stock for product: " + names);
         }
+        logger.info("Decremented stock for products: {}", stockDecrements);
+        productCache.invalidateInPlace(stockDecrements.keySet());
+        realtimePushService.productsChanged(stockDecrements.keySet());
 
         // Set order total and items
         order.setTotalAmount(totalAmount);
         order.setItems(new HashSet<>(orderItems));
         order = orderRepository.save(order);
 
+        // Link the order to each seller in it, for seller order listings
+        Order savedOrder = order;
+        List<SellerOrder> sellerOrders = productsById.values().stream()
+                .map(product -> product.getSeller().getId())
+                .distinct()
+                .map(sellerId -> new SellerOrder(sellerId, savedOrder))
+                .collect(Collectors.toList());
+        sellerOrderRepository.saveAll(sellerOrders);
+
         logger.info("Order created successfully with ID: {} for user: {}", order.getId(), user.getUsername());
 
-        // Clear user's cart after successful order creation
-        clearUserCart(user);
+        // Clear user's cart after successful order creation; its holds are now real decrements
+        Long userId = user.getId();
+        clearUserCart(userId);
+        TransactionUtils.afterCommit(() -> stockReservationLedger.releaseAll(userId));
 
         // Send order confirmation notification
         notificationService.sendOrderConfirmationNotification(order);
@@ -139,18 +244,10 @@ public class OrderServiceImpl implements OrderService {
         return order;
     }
 
-    @Transactional
-    private void clearUserCart(User user) {
-        Cart userCart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "user", user.getId()));
-        
-        // Create a new list to avoid concurrent modification
-        List<CartItem> itemsToRemove = new ArrayList<>(userCart.getCartItems());
-        
-        // Remove all items
-        cartItemRepository.deleteAll(itemsToRemove);
-        userCart.getCartItems().clear();
-        cartRepository.save(userCart);
+    // One bulk delete; the cart and its items are never loaded
+    private void clearUserCart(Long userId) {
+        cartItemRepository.deleteAllByUserId(userId);
+        cartSnapshotCache.invalidate(userId);
     }
 
     @Override
@@ -163,7 +260,7 @@ public class OrderServiceImpl implements OrderService {
         if (seller.getRole() != User.Role.SELLER) {
             throw new UnauthorizedOperationException("User is not a seller.");
         }
-        return orderRepository.findOrdersBySeller(seller, pageable);
+        return loadOrderPage(sellerOrderRepository.findOrderIdsBySellerId(seller.getId(), sellerOrderPageable(pageable)));
     }
     
     @Override
@@ -171,7 +268,35 @@ public class OrderServiceImpl implements OrderService {
         if (seller.getRole() != User.Role.SELLER) {
             throw new UnauthorizedOperationException("User is not a seller.");
         }
-        return orderRepository.findOrdersBySellerAndStatus(seller, status, pageable);
+        return loadOrderPage(sellerOrderRepository.findOrderIdsBySellerIdAndStatus(seller.getId(), status, sellerOrderPageable(pageable)));
+    }
+
+    // Loads a page of order ids in one statement and returns them in the id page's order
+    private Page<Order> loadOrderPage(Page<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new PageImpl<>(List.of(), orderIds.getPageable(), orderIds.getTotalElements());
+        }
+        Map<Long, Order> ordersById = orderRepository.findAllWithItemsByIdIn(orderIds.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+        List<Order> orders = orderIds.getContent().stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(orders, orderIds.getPageable(), orderIds.getTotalElements());
+    }
+
+    // Seller pages are sorted on the link table, which carries the order date, status and id
+    private Pageable sellerOrderPageable(Pageable pageable) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            switch (order.getProperty()) {
+                case "orderDate", "status" -> orders.add(order);
+                case "id" -> orders.add(new Sort.Order(order.getDirection(), "orderId"));
+                default -> logger.debug("Ignoring unsupported seller order sort: {}", order.getProperty());
+            }
+        }
+        Sort sort = orders.isEmpty() ? Sort.by(Sort.Direction.DESC, "orderDate") : Sort.by(orders);
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.and(Sort.by(Sort.Direction.DESC, "orderId")));
     }
 
     @Override
@@ -193,8 +318,7 @@ public class OrderServiceImpl implements OrderService {
             .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
         // Check if any item in the order belongs to this seller
-        boolean sellerHasItemInOrder = order.getItems().stream()
-            .anyMatch(item -> item.getProduct().getSeller().getId().equals(seller.getId()));
+        boolean sellerHasItemInOrder = sellerOrderRepository.existsBySellerIdAndOrderId(seller.getId(), orderId);
 
         if (!sellerHasItemInOrder) {
             throw new UnauthorizedOperationException("Seller not authorized to view this order as it contains no items from them.");
@@ -213,30 +337,72 @@ public class OrderServiceImpl implements OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
         // Check if the seller is actually involved in this order
-        boolean isSellerInvolved = order.getItems().stream()
-                                     .anyMatch(item -> item.getProduct().getSeller().getId().equals(seller.getId()));
+        boolean isSellerInvolved = sellerOrderRepository.existsBySellerIdAndOrderId(seller.getId(), orderId);
 
         if (!isSellerInvolved) {
             throw new UnauthorizedOperationException("Seller not authorized to update status for this order (no items from this seller).");
         }
 
+        // Guarded on the status read above, so concurrent updates cannot both take the same edge
+        OrderStatus previousStatus = order.getStatus();
+        if (orderRepository.transitionStatus(orderId, previousStatus, newStatus) == 0) {
+            throw new BadRequestException("Order " + orderId + " was updated concurrently; reload it and try again.");
+        }
         order.setStatus(newStatus);
-        Order updatedOrder = orderRepository.save(order);
+        sellerOrderRepository.updateStatusByOrderId(orderId, newStatus);
+
+        // Keep the earnings rollup in step with delivered revenue
+        if (previousStatus != OrderStatus.DELIVERED && newStatus == OrderStatus.DELIVERED) {
+            adjustSellerEarnings(order, BigDecimal.ONE);
+        } else if (previousStatus == OrderStatus.DELIVERED && newStatus != OrderStatus.DELIVERED) {
+            adjustSellerEarnings(order, BigDecimal.ONE.negate());
+        }
 
         // Send notifications to relevant sellers
-        Set<Long> sellerIdsInOrder = updatedOrder.getItems().stream()
-                                           .map(item -> item.getProduct().getSeller().getId())
-                                           .collect(Collectors.toSet());
+        Set<Long> sellerIdsInOrder = new HashSet<>(sellerOrderRepository.findSellerIdsByOrderId(orderId));
 
         for (Long sellerId : sellerIdsInOrder) {
             try {
-                notificationService.sendOrderUpdateNotification(updatedOrder, "ORDER_STATUS_UPDATED", sellerId);
+                notificationService.sendOrderUpdateNotification(order, "ORDER_STATUS_UPDATED", sellerId);
             } catch (Exception e) {
                 System.err.println("Failed to send ORDER_STATUS_UPDATED notification to seller " + sellerId + ": " + e.getMessage());
             }
         }
 
-        return updatedOrder;
+        return order;
+    }
+
+    private void adjustSellerEarnings(Order order, BigDecimal sign) {
+        Map<Long, BigDecimal> amountBySeller = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            BigDecimal lineAmount = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            amountBySeller.merge(item.getProduct().getSeller().getId(), lineAmount, BigDecimal::add);
+        }
+        LocalDate orderDay = order.getOrderDate().toLocalDate();
+        amountBySeller.forEach((sellerId, amount) ->
+                sellerDailyEarningsRepository.addEarnings(sellerId, orderDay, amount.multiply(sign)));
+    }
+
+    @Override
+    public SellerEarningsDto getSellerEarnings(User seller) {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+        LocalDate monthStart = today.with(TemporalAdjusters.firstDayOfMonth());
+        LocalDate yearStart = today.with(TemporalAdjusters.firstDayOfYear());
+        // The week can start in the previous year
+        LocalDate from = weekStart.isBefore(yearStart) ? weekStart : yearStart;
+
+        SellerDailyEarningsRepository.EarningsWindows windows = sellerDailyEarningsRepository.sumEarningsWindows(
+                seller.getId(), from, today, weekStart, monthStart, yearStart);
+        return new SellerEarningsDto(
+                toDouble(windows.getDaily()),
+                toDouble(windows.getWeekly()),
+                toDouble(windows.getMonthly()),
+                toDouble(windows.getYearly()));
+    }
+
+    private double toDouble(BigDecimal amount) {
+        return amount != null ? amount.doubleValue() : 0.0;
     }
 
     public Double getSellerEarningsBetween(User seller, LocalDateTime from, LocalDateTime to) {
@@ -1,12 +1,22 @@
 package com.quickcart.service.impl;
 
+import com.quickcart.cache.ProductCache;
 import com.quickcart.entity.Product;
 import com.quickcart.entity.User;
 import com.quickcart.entity.User.Role;
 import com.quickcart.exception.ResourceNotFoundException;
 import com.quickcart.exception.UnauthorizedOperationException;
+import com.quickcart.inventory.StockReservationLedger;
+import com.quickcart.media.ProductImageProcessor;
+import com.quickcart.media.ProductImageStore;
+import com.quickcart.messaging.RealtimePushService;
+import com.quickcart.repository.ProductCursor;
 import com.quickcart.repository.ProductRepository;
 import com.quickcart.repository.specification.ProductSpecification;
+import com.quickcart.search.ProductSearchDocument;
+import com.quickcart.search.ProductSearchFilter;
+import com.quickcart.search.ProductSearchHits;
+import com.quickcart.search.ProductSearchIndex;
 import com.quickcart.service.ProductService;
 import com.quickcart.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +28,10 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.StringUtils;
+import com.quickcart.payload.CursorPage;
+import com.quickcart.payload.FacetedPage;
+import com.quickcart.payload.ProductMapper;
 import com.quickcart.payload.ProductResponseDTO;
 import com.quickcart.payload.ProductRequestDTO;
 import org.slf4j.Logger;
@@ -28,18 +40,15 @@ import com.quickcart.util.SortingUtils;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.PageImpl;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Optional;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID; // For unique filenames
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -52,74 +61,23 @@ public class ProductServiceImpl implements ProductService {
     @Autowired(required = false)
     private NotificationService notificationService;
 
-    @Value("${file.upload-dir:./uploads/product-images}") // Default value if not in properties
-    private String uploadDir;
-
-    private Path rootLocation; // To store the root path
-
-    @jakarta.annotation.PostConstruct
-    public void init() {
-        this.rootLocation = Paths.get(uploadDir);
-        try {
-            if (!Files.exists(rootLocation)) {
-                logger.info("Creating upload directory at: {}", rootLocation.toAbsolutePath());
-                Files.createDirectories(rootLocation);
-            }
-            logger.info("Upload directory initialized at: {}", rootLocation.toAbsolutePath());
-        } catch (IOException e) {
-            logger.error("Could not initialize storage location: {}", e.getMessage());
-            throw new RuntimeException("Could not initialize storage location", e);
-        }
-    }
-
-    private String storeFile(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            logger.warn("Attempted to store empty file");
-            return null;
-        }
-
-        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-        String extension = "";
-        int i = originalFilename.lastIndexOf('.');
-        if (i > 0) {
-            extension = originalFilename.substring(i);
-        }
-        String uniqueFilename = UUID.randomUUID().toString() + extension;
+    @Autowired
+    private ProductCache productCache;
 
-        try {
-            if (originalFilename.contains("..")) {
-                throw new RuntimeException("Cannot store file with relative path outside current directory " + originalFilename);
-            }
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
 
-            Path targetLocation = this.rootLocation.resolve(uniqueFilename);
-            logger.info("Storing file {} to {}", originalFilename, targetLocation.toAbsolutePath());
-            
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            
-
-            String imageUrl = "api/product-images/" + uniqueFilename;
-            logger.info("File stored successfully. Access URL: {}", imageUrl);
-            return imageUrl;
-        } catch (IOException e) {
-            logger.error("Failed to store file {}: {}", originalFilename, e.getMessage());
-            throw new RuntimeException("Failed to store file " + originalFilename, e);
-        }
-    }
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
 
-    private void deleteFile(String fileUrl) {
-        if (fileUrl == null || fileUrl.isBlank()) {
-            return;
-        }
-        try {
+    @Autowired
+    private RealtimePushService realtimePushService;
 
-            String filename = Paths.get(fileUrl).getFileName().toString();
-            Path filePath = this.rootLocation.resolve(filename);
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
+    @Autowired
+    private ProductImageProcessor productImageProcessor;
 
-            System.err.println("Failed to delete file: " + fileUrl + " Error: " + e.getMessage());
-        }
-    }
+    @Autowired
+    private ProductImageStore productImageStore;
 
     @Override
     @Transactional
@@ -143,7 +101,7 @@ public class ProductServiceImpl implements ProductService {
 
 
         if (imageFile != null && !imageFile.isEmpty()) {
-            String imageUrl = storeFile(imageFile);
+            String imageUrl = productImageStore.store(imageFile);
             product.setImageUrl(imageUrl);
         }
         
@@ -151,6 +109,11 @@ public class ProductServiceImpl implements ProductService {
 
 
         Product savedProduct = productRepository.save(product);
+        productCache.invalidate(savedProduct.getId());
+        productSearchIndex.index(savedProduct);
+        if (imageFile != null && !imageFile.isEmpty()) {
+            productImageProcessor.processAfterCommit(savedProduct.getId(), savedProduct.getImageUrl());
+        }
         
         // Send notification after product is successfully saved
         if (notificationService != null) {
@@ -168,25 +131,16 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Optional<ProductResponseDTO> getProductById(Long productId) {
-        return productRepository.findById(productId)
-            .map(product -> new ProductResponseDTO(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getPrice(),
-                product.getCategory(),
-                product.getBrand(),
-                product.getColor(),
-                product.getSize(),
-                product.getStock(),
-                product.getImageUrl(),
-                product.getDiscountPercentage(),
-                product.isAvailable(),
-                product.getSeller().getId(),
-                product.getSeller().getUsername(),
-                product.getCreatedAt(),
-                product.getUpdatedAt()
-            ));
+        Optional<ProductResponseDTO> cached = productCache.get(productId);
+        if (cached.isPresent()) {
+            return cached.map(this::withAvailableStock);
+        }
+
+        long generation = productCache.currentGeneration();
+        Optional<ProductResponseDTO> loaded = productRepository.findById(productId)
+            .map(this::mapProductToResponseDTO);
+        loaded.ifPresent(dto -> productCache.put(productId, dto, generation));
+        return loaded;
     }
 
     @Override
@@ -197,13 +151,21 @@ public class ProductServiceImpl implements ProductService {
         }
         
 
+        Page<ProductResponseDTO> cachedPage = productCache.getPage(pageable);
+        if (cachedPage != null) {
+            return cachedPage.map(this::withAvailableStock);
+        }
+
+        long generation = productCache.currentGeneration();
         Specification<Product> spec = (root, query, criteriaBuilder) -> 
             criteriaBuilder.isTrue(root.get("available"));
         
 
         Page<Product> productPage = productRepository.findAll(spec, pageable);
         
-        return productPage.map(this::mapProductToResponseDTO);
+        Page<ProductResponseDTO> dtoPage = productPage.map(this::mapProductToResponseDTO);
+        productCache.putPage(pageable, dtoPage, generation);
+        return dtoPage;
     }
 
     @Override
@@ -218,6 +180,7 @@ public class ProductServiceImpl implements ProductService {
             Double maxPrice,
             BigDecimal minDiscount,
             String sortBy,
+            boolean includeFacets,
             Pageable pageable) {
         
         logger.info("ProductService.searchAndFilterProducts called with: searchTerm='{}', category='{}', brand='{}', color='{}', size='{}', available='{}', minPrice='{}', maxPrice='{}', minDiscount='{}', sortBy='{}'",
@@ -225,11 +188,39 @@ public class ProductServiceImpl implements ProductService {
 
 
         Boolean effectiveAvailable = available != null ? available : true;
+        Sort sort = parseSortBy(sortBy);
+
+        if (StringUtils.hasText(searchTerm)) {
+            ProductSearchFilter filter = searchFilter(category, brand, color, size, effectiveAvailable, minPrice, maxPrice, minDiscount);
+            return searchIndexed(searchTerm, filter, sort, includeFacets, pageable);
+        }
 
         Specification<Product> spec = ProductSpecification.filterByCriteria(
-                searchTerm, category, brand, color, size, effectiveAvailable, minPrice, maxPrice, minDiscount);
-        
-        Sort sort = parseSortBy(sortBy);
+                category, brand, color, size, effectiveAvailable, minPrice, maxPrice, minDiscount);
+        Page<ProductResponseDTO> result = searchSorted(spec, sort, pageable);
+        if (!includeFacets) {
+            return result;
+        }
+        // One grouped query over the same filters, instead of a DISTINCT query per facet
+        return new FacetedPage<>(result.getContent(), result.getPageable(), result.getTotalElements(),
+                productRepository.countFacets(spec));
+    }
+
+    // Text matches are filtered, counted and ranked in the search index; SQL only loads the page
+    private Page<ProductResponseDTO> searchIndexed(String searchTerm, ProductSearchFilter filter, Sort sort,
+                                                   boolean includeFacets, Pageable pageable) {
+        Sort.Order order = sort.isSorted() ? ProductCursor.seekOrder(sort) : null;
+        ProductSearchHits hits = productSearchIndex.search(
+                searchTerm, filter, order, pageable.getOffset(), pageable.getPageSize(), includeFacets);
+        List<ProductResponseDTO> content = loadInOrder(hits.getDocuments());
+
+        logger.info("Found {} products in search index", hits.getTotal());
+        return includeFacets
+                ? new FacetedPage<>(content, pageable, hits.getTotal(), hits.getFacets())
+                : new PageImpl<>(content, pageable, hits.getTotal());
+    }
+
+    private Page<ProductResponseDTO> searchSorted(Specification<Product> spec, Sort sort, Pageable pageable) {
         Pageable effectivePageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.isSorted() ? sort : Sort.by(Sort.Direction.DESC, "createdAt"));
 
         logger.info("Executing search with pageable: page={}, size={}, sort={}", 
@@ -242,6 +233,102 @@ public class ProductServiceImpl implements ProductService {
         return productPage.map(this::mapProductToResponseDTO);
     }
 
+    @Override
+    public CursorPage<ProductResponseDTO> getAllProductsAfter(String cursor, String sortBy, int size) {
+        Specification<Product> spec = (root, query, criteriaBuilder) ->
+            criteriaBuilder.isTrue(root.get("available"));
+        return seek(spec, sortBy, cursor, size);
+    }
+
+    @Override
+    public CursorPage<ProductResponseDTO> searchAndFilterProductsAfter(
+            String searchTerm,
+            String category,
+            String brand,
+            String color,
+            String size,
+            Boolean available,
+            Double minPrice,
+            Double maxPrice,
+            BigDecimal minDiscount,
+            String sortBy,
+            String cursor,
+            int pageSize) {
+
+        Boolean effectiveAvailable = available != null ? available : true;
+
+        if (StringUtils.hasText(searchTerm)) {
+            ProductSearchFilter filter = searchFilter(category, brand, color, size, effectiveAvailable, minPrice, maxPrice, minDiscount);
+            return seekIndexed(searchTerm, filter, sortBy, cursor, pageSize);
+        }
+        Specification<Product> spec = ProductSpecification.filterByCriteria(
+                category, brand, color, size, effectiveAvailable, minPrice, maxPrice, minDiscount);
+        return seek(spec, sortBy, cursor, pageSize);
+    }
+
+    private ProductSearchFilter searchFilter(String category, String brand, String color, String size, Boolean available,
+                                             Double minPrice, Double maxPrice, BigDecimal minDiscount) {
+        return ProductSearchFilter.builder()
+                .category(category)
+                .brand(brand)
+                .color(color)
+                .size(size)
+                .available(available)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minDiscount(minDiscount)
+                .build();
+    }
+
+    private CursorPage<ProductResponseDTO> seek(Specification<Product> spec, String sortBy, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        Sort.Order order = ProductCursor.seekOrder(parseSortBy(sortBy));
+        ProductCursor after = StringUtils.hasText(cursor) ? ProductCursor.decode(cursor, order) : null;
+
+        // One row past the page tells whether another slice exists, without a count
+        List<Product> rows = productRepository.findPageAfter(spec, order, after, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<Product> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = hasNext ? ProductCursor.after(order, page.get(page.size() - 1)).encode() : null;
+        List<ProductResponseDTO> content = page.stream().map(this::mapProductToResponseDTO).toList();
+        return new CursorPage<>(content, pageSize, hasNext, nextCursor);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, 100));
+    }
+
+    // Keyset slice over index matches; the cursor is taken from the index's copy of the last row
+    private CursorPage<ProductResponseDTO> seekIndexed(String searchTerm, ProductSearchFilter filter, String sortBy,
+                                                       String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        Sort.Order order = ProductCursor.seekOrder(parseSortBy(sortBy));
+        ProductCursor after = StringUtils.hasText(cursor) ? ProductCursor.decode(cursor, order) : null;
+
+        List<ProductSearchDocument> rows = productSearchIndex.searchAfter(searchTerm, filter, order, after, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductSearchDocument> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = hasNext ? ProductCursor.after(order, page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(loadInOrder(page), pageSize, hasNext, nextCursor);
+    }
+
+    // Loads the page's products, sellers included, in the order the index returned them
+    private List<ProductResponseDTO> loadInOrder(List<ProductSearchDocument> documents) {
+        if (documents.isEmpty()) {
+            return List.of();
+        }
+        List<Long> pageIds = documents.stream().map(ProductSearchDocument::getId).toList();
+        Map<Long, Product> productsById = productRepository.findAllWithSellerByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(this::mapProductToResponseDTO)
+                .toList();
+    }
+
     private Sort parseSortBy(String sortBy) {
         if (sortBy == null || sortBy.trim().isEmpty()) {
             return Sort.unsorted();
@@ -284,16 +371,20 @@ public class ProductServiceImpl implements ProductService {
         product.setAvailable(productRequestDTO.isAvailable());
 
         if (imageFile != null && !imageFile.isEmpty()) {
-
-            if (product.getImageUrl() != null && !product.getImageUrl().isBlank()) {
-                deleteFile(product.getImageUrl());
-            }
-            String newImageUrl = storeFile(imageFile);
+            // Store before releasing, so re-uploading the same image does not drop its file
+            String oldImageUrl = product.getImageUrl();
+            String newImageUrl = productImageStore.store(imageFile);
+            productImageStore.release(oldImageUrl);
             product.setImageUrl(newImageUrl);
+            product.setImageRenditionsReady(false);
+            productImageProcessor.processAfterCommit(productId, newImageUrl);
         }
 
 
         Product updatedProduct = productRepository.save(product);
+        productCache.invalidate(productId);
+        productSearchIndex.index(updatedProduct);
+        realtimePushService.productsChanged(List.of(productId));
 
         // Send notification after product is successfully updated
         if (notificationService != null) {
@@ -310,38 +401,14 @@ public class ProductServiceImpl implements ProductService {
     // Helper method to map Product entity to ProductResponseDTO
     private ProductResponseDTO mapProductToResponseDTO(Product product) {
         if (product == null) return null;
+        return ProductMapper.toDto(product, stockReservationLedger.availableStock(product.getId(), product.getStock()));
+    }
 
-
-        String imageUrl = product.getImageUrl();
-        if (imageUrl != null && !imageUrl.startsWith("http")) {
-
-            imageUrl = imageUrl.replaceFirst("^/+", "");
-
-            if (!imageUrl.startsWith("api/product-images/")) {
-                imageUrl = "api/product-images/" + imageUrl;
-            }
-
-            imageUrl = "/" + imageUrl;
-        }
-
-        return new ProductResponseDTO(
-            product.getId(),
-            product.getName(),
-            product.getDescription(),
-            product.getPrice(),
-            product.getCategory(),
-            product.getBrand(),
-            product.getColor(),
-            product.getSize(),
-            product.getStock(),
-            imageUrl,
-            product.getDiscountPercentage(),
-            product.isAvailable(),
-            product.getSeller().getId(),
-            product.getSeller().getUsername(),
-            product.getCreatedAt(),
-            product.getUpdatedAt()
-        );
+    // Cached DTOs carry the availability from when they were loaded; holds change faster
+    private ProductResponseDTO withAvailableStock(ProductResponseDTO dto) {
+        return dto.toBuilder()
+            .availableStock(stockReservationLedger.availableStock(dto.getId(), dto.getStock()))
+            .build();
     }
 
     @Override
@@ -356,7 +423,9 @@ public class ProductServiceImpl implements ProductService {
         
         String imageUrl = product.getImageUrl();
         productRepository.delete(product);
-        deleteFile(imageUrl);
+        productCache.invalidate(productId);
+        productSearchIndex.remove(productId);
+        productImageStore.release(imageUrl);
 
 
         if (notificationService != null) {
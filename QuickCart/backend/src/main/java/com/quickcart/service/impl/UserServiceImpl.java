@@ -6,6 +6,7 @@ import com.quickcart.exception.UnauthorizedOperationException;
 import com.quickcart.payload.UserRegistrationDTO;
 import com.quickcart.payload.UserResponseDTO;
 import com.quickcart.repository.UserRepository;
+import com.quickcart.security.UserPrincipalCache;
 import com.quickcart.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +26,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     @Override
     @Transactional
     public UserResponseDTO registerUser(UserRegistrationDTO registrationDTO) {
@@ -102,6 +106,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
         return mapToUserResponseDTO(updatedUser);
     }
 
@@ -117,6 +122,7 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.delete(user);
+        userPrincipalCache.invalidate(userId);
     }
 
     @Override
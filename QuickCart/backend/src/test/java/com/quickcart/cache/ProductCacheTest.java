@@ -0,0 +1,87 @@
+package com.quickcart.cache;
+
+import com.quickcart.payload.ProductResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 2);
+    private static final Pageable SECOND_PAGE = PageRequest.of(1, 2);
+
+    @Test
+    void stockChangeDropsOnlyThePagesShowingTheProduct() {
+        ProductCache cache = cache();
+        cache.putPage(FIRST_PAGE, page(FIRST_PAGE, 1L, 2L), cache.currentGeneration());
+        cache.putPage(SECOND_PAGE, page(SECOND_PAGE, 3L, 4L), cache.currentGeneration());
+
+        cache.invalidateInPlace(List.of(3L));
+
+        assertThat(cache.getPage(FIRST_PAGE)).isNotNull();
+        assertThat(cache.getPage(SECOND_PAGE)).isNull();
+    }
+
+    @Test
+    void productEditDropsEveryPage() {
+        ProductCache cache = cache();
+        cache.putPage(FIRST_PAGE, page(FIRST_PAGE, 1L, 2L), cache.currentGeneration());
+
+        cache.invalidate(9L);
+
+        assertThat(cache.getPage(FIRST_PAGE)).isNull();
+    }
+
+    @Test
+    void loadsRacingWithAnEvictionOfTheirOwnProductsAreNotStored() {
+        ProductCache cache = cache();
+        long generation = cache.currentGeneration();
+
+        cache.invalidateInPlace(List.of(1L));
+        cache.put(1L, product(1L), generation);
+        cache.put(2L, product(2L), generation);
+        cache.putPage(FIRST_PAGE, page(FIRST_PAGE, 1L, 2L), generation);
+        cache.putPage(SECOND_PAGE, page(SECOND_PAGE, 3L, 4L), generation);
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(cache.get(2L)).isPresent();
+        assertThat(cache.getPage(FIRST_PAGE)).isNull();
+        assertThat(cache.getPage(SECOND_PAGE)).isNotNull();
+        assertThat(cache.changedSince(List.of(1L), generation)).isTrue();
+        assertThat(cache.changedSince(List.of(2L, 3L), generation)).isFalse();
+    }
+
+    @Test
+    void stockOrderedPagesAreNotCached() {
+        ProductCache cache = cache();
+        Pageable byStock = PageRequest.of(0, 2, Sort.by("stock"));
+
+        cache.putPage(byStock, page(byStock, 1L, 2L), cache.currentGeneration());
+
+        assertThat(cache.getPage(byStock)).isNull();
+    }
+
+    private static ProductCache cache() {
+        ProductCache cache = new ProductCache();
+        ReflectionTestUtils.setField(cache, "maxProducts", 100);
+        ReflectionTestUtils.setField(cache, "maxPages", 10);
+        cache.init();
+        return cache;
+    }
+
+    private static Page<ProductResponseDTO> page(Pageable pageable, Long... ids) {
+        return new PageImpl<>(List.of(ids).stream().map(ProductCacheTest::product).toList(), pageable, 4);
+    }
+
+    private static ProductResponseDTO product(Long id) {
+        return ProductResponseDTO.builder().id(id).build();
+    }
+}
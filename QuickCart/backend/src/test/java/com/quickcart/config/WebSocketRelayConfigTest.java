@@ -0,0 +1,73 @@
+package com.quickcart.config;
+
+import com.quickcart.support.InProcessStompRelay;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.user.MultiServerUserRegistry;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.websocket.broker.mode=relay",
+        // Own database, so this context's schema does not replace the shared test one
+        "spring.datasource.url=jdbc:h2:mem:quickcart-relay;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class WebSocketRelayConfigTest {
+
+    @TestConfiguration
+    static class RelayStandIn {
+        @Bean
+        InProcessStompRelay stompRelayTcpClient() {
+            return new InProcessStompRelay();
+        }
+    }
+
+    @Autowired
+    private InProcessStompRelay relay;
+
+    @Autowired
+    private StompBrokerRelayMessageHandler relayHandler;
+
+    @Autowired
+    private UserDestinationMessageHandler userDestinationHandler;
+
+    @Autowired
+    private SimpUserRegistry userRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    void relayModeConnectsTheSystemSessionThroughTheConfiguredClient() {
+        assertThat(relayHandler.getTcpClient()).isSameAs(relay);
+        assertThat(relayHandler.isBrokerAvailable()).isTrue();
+        assertThat(relay.getSentFrames())
+                .anySatisfy(frame -> assertThat(frame.getCommand()).isEqualTo(StompCommand.CONNECT));
+    }
+
+    @Test
+    void relayModeSharesUserSessionsBetweenNodes() {
+        assertThat(userDestinationHandler.getBroadcastDestination()).isEqualTo("/topic/unresolved-user-destination");
+        assertThat(userRegistry).isInstanceOf(MultiServerUserRegistry.class);
+    }
+
+    @Test
+    void sendToUserWithoutLocalSessionIsBroadcastThroughTheBroker() {
+        messagingTemplate.convertAndSendToUser("42", "/queue/notifications", "hello");
+
+        assertThat(relay.getSentFrames()).anySatisfy(frame -> {
+            assertThat(frame.getCommand()).isEqualTo(StompCommand.SEND);
+            assertThat(frame.getDestination()).isEqualTo("/topic/unresolved-user-destination");
+        });
+    }
+}
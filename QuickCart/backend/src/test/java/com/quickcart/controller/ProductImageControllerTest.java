@@ -0,0 +1,195 @@
+package com.quickcart.controller;
+
+import com.quickcart.media.HotImageCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ProductImageControllerTest {
+
+    private static final String FILENAME = "abc123.png";
+    private static final String ETAG = "\"abc123\"";
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final Instant MODIFIED = Instant.parse("2024-03-01T10:00:00Z");
+
+    @TempDir
+    private Path uploadDir;
+
+    private ProductImageController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(uploadDir.resolve(FILENAME), CONTENT);
+        Files.setLastModifiedTime(uploadDir.resolve(FILENAME), FileTime.from(MODIFIED));
+
+        controller = new ProductImageController();
+        ReflectionTestUtils.setField(controller, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(controller, "hotImageCache", mock(HotImageCache.class));
+        controller.init();
+    }
+
+    @Test
+    void singleRangesAreServedAsPartialContent() throws IOException {
+        assertPartial(get("bytes=2-4"), "bytes 2-4/10", "234");
+        assertPartial(get("bytes=7-"), "bytes 7-9/10", "789");
+        // An end past the file is clamped to the last byte
+        assertPartial(get("bytes=8-100"), "bytes 8-9/10", "89");
+    }
+
+    @Test
+    void suffixRangesCountFromTheEnd() throws IOException {
+        assertPartial(get("bytes=-3"), "bytes 7-9/10", "789");
+        // A suffix longer than the file is the whole file
+        assertPartial(get("bytes=-50"), "bytes 0-9/10", "0123456789");
+    }
+
+    @Test
+    void unsatisfiableRangesGet416WithTheFileSize() throws IOException {
+        for (String range : new String[]{"bytes=10-", "bytes=20-30", "bytes=-0"}) {
+            MockHttpServletResponse response = get(range);
+
+            assertThat(response.getStatus()).as(range).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).as(range).isEqualTo("bytes */10");
+        }
+    }
+
+    @Test
+    void rangesItDoesNotHandleGetTheWholeFile() throws IOException {
+        for (String range : new String[]{"bytes=0-1,4-5", "bytes=5-2", "bytes=abc", "items=0-1", "bytes=1"}) {
+            MockHttpServletResponse response = get(range);
+
+            assertThat(response.getStatus()).as(range).isEqualTo(200);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).as(range).isNull();
+            assertThat(response.getContentAsByteArray()).as(range).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void ifRangeMustMatchStronglyForThePartialResponse() throws IOException {
+        assertPartial(get("bytes=0-1", HttpHeaders.IF_RANGE, ETAG), "bytes 0-1/10", "01");
+        assertPartial(get("bytes=0-1", HttpHeaders.IF_RANGE, httpDate(MODIFIED)), "bytes 0-1/10", "01");
+
+        // A stale or weak validator means the client's copy is no use, so the whole file is sent
+        for (String ifRange : new String[]{"\"other\"", "W/" + ETAG, httpDate(MODIFIED.minusSeconds(60)), "not a date"}) {
+            MockHttpServletResponse response = get("bytes=0-1", HttpHeaders.IF_RANGE, ifRange);
+
+            assertThat(response.getStatus()).as(ifRange).isEqualTo(200);
+            assertThat(response.getContentAsByteArray()).as(ifRange).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void ifNoneMatchComparesWeakly() throws IOException {
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, ETAG).getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "W/" + ETAG).getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG).getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "*").getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_NONE_MATCH, "\"other\"").getStatus()).isEqualTo(200);
+        // A conditional range request is answered 304 as well when the tag matches
+        assertThat(get("bytes=0-1", HttpHeaders.IF_NONE_MATCH, ETAG).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void ifModifiedSinceIsIgnoredWhenIfNoneMatchIsPresent() throws IOException {
+        assertThat(get(null, HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED)).getStatus()).isEqualTo(304);
+        assertThat(get(null, HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED.minusSeconds(1))).getStatus())
+                .isEqualTo(200);
+        assertThat(get(null, HttpHeaders.IF_MODIFIED_SINCE, "not a date").getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest request = request("GET", null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED));
+        assertThat(serve(request).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void headSendsTheHeadersWithoutTheBody() throws IOException {
+        MockHttpServletResponse full = serve(request("HEAD", null));
+        MockHttpServletResponse partial = serve(request("HEAD", "bytes=2-4"));
+
+        assertThat(full.getStatus()).isEqualTo(200);
+        assertThat(full.getContentLengthLong()).isEqualTo(10);
+        assertThat(full.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        assertThat(full.getContentAsByteArray()).isEmpty();
+        assertThat(partial.getStatus()).isEqualTo(206);
+        assertThat(partial.getContentLengthLong()).isEqualTo(3);
+        assertThat(partial.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void precompressedVariantIsServedWithItsOwnTagButNeverForRanges() throws IOException {
+        byte[] brotli = "brotli".getBytes(StandardCharsets.US_ASCII);
+        Files.write(uploadDir.resolve(FILENAME + ".br"), brotli);
+        Files.write(uploadDir.resolve(FILENAME + ".gz"), "gzip".getBytes(StandardCharsets.US_ASCII));
+
+        MockHttpServletResponse compressed = get(null, HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        assertThat(compressed.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+        assertThat(compressed.getHeader(HttpHeaders.ETAG)).isEqualTo("\"abc123-br\"");
+        assertThat(compressed.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(compressed.getContentAsByteArray()).isEqualTo(brotli);
+
+        assertThat(get(null, HttpHeaders.ACCEPT_ENCODING, "gzip").getHeader(HttpHeaders.CONTENT_ENCODING))
+                .isEqualTo("gzip");
+        // The identity tag does not validate the compressed copy
+        MockHttpServletRequest revalidate = request("GET", null);
+        revalidate.addHeader(HttpHeaders.ACCEPT_ENCODING, "br");
+        revalidate.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        assertThat(serve(revalidate).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest ranged = request("GET", "bytes=0-1");
+        ranged.addHeader(HttpHeaders.ACCEPT_ENCODING, "br");
+        MockHttpServletResponse partial = serve(ranged);
+        assertPartial(partial, "bytes 0-1/10", "01");
+        assertThat(partial.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    private MockHttpServletResponse get(String range) throws IOException {
+        return serve(request("GET", range));
+    }
+
+    private MockHttpServletResponse get(String range, String header, String value) throws IOException {
+        MockHttpServletRequest request = request("GET", range);
+        request.addHeader(header, value);
+        return serve(request);
+    }
+
+    private static MockHttpServletRequest request(String method, String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/product-images/" + FILENAME);
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getImage(FILENAME, request, response);
+        return response;
+    }
+
+    private static void assertPartial(MockHttpServletResponse response, String contentRange, String body) {
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo(contentRange);
+        assertThat(response.getContentAsByteArray()).isEqualTo(body.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,42 @@
+package com.quickcart.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockReservationLedgerTest {
+
+    @Test
+    void releaseAllFreesOnlyThatUsersHolds() {
+        StockReservationLedger ledger = ledger(60_000);
+        ledger.hold(1L, 10L, 2, 5);
+        ledger.hold(2L, 10L, 1, 5);
+        ledger.hold(1L, 20L, 3, 5);
+
+        ledger.releaseAll(10L);
+
+        assertThat(ledger.availableStock(1L, 5)).isEqualTo(2);
+        assertThat(ledger.availableStock(2L, 5)).isEqualTo(5);
+        assertThat(ledger.getStats()).containsEntry("users", 1L);
+        // Nothing left to release, and no other user is touched
+        ledger.releaseAll(10L);
+        assertThat(ledger.availableStock(1L, 5)).isEqualTo(2);
+    }
+
+    @Test
+    void expiredHoldsLeaveTheUserIndex() {
+        StockReservationLedger ledger = ledger(0);
+        ledger.hold(1L, 10L, 2, 5);
+
+        ledger.sweepExpired();
+
+        assertThat(ledger.getStats()).containsEntry("users", 0L).containsEntry("products", 0L);
+    }
+
+    private static StockReservationLedger ledger(long ttlMs) {
+        StockReservationLedger ledger = new StockReservationLedger();
+        ReflectionTestUtils.setField(ledger, "holdTtlMs", ttlMs);
+        return ledger;
+    }
+}
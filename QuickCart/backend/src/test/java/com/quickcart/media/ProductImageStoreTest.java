@@ -0,0 +1,165 @@
+package com.quickcart.media;
+
+import com.quickcart.entity.Cart;
+import com.quickcart.entity.ImageBlob;
+import com.quickcart.entity.Order;
+import com.quickcart.entity.User;
+import com.quickcart.payload.OrderRequest;
+import com.quickcart.payload.ProductRequestDTO;
+import com.quickcart.repository.CartRepository;
+import com.quickcart.repository.ImageBlobRepository;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.service.OrderService;
+import com.quickcart.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductImageStoreTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = userRepository.findByUsername("imageSeller")
+                .orElseGet(() -> saveUser("imageSeller", User.Role.SELLER));
+        User buyer = userRepository.findByUsername("imageBuyer")
+                .orElseGet(() -> saveUser("imageBuyer", User.Role.USER));
+        if (cartRepository.findByUserId(buyer.getId()).isEmpty()) {
+            Cart cart = new Cart();
+            cart.setUser(buyer);
+            cartRepository.save(cart);
+        }
+    }
+
+    @Test
+    void sharedImageFileIsKeptUntilTheLastProductLetsGo() throws IOException {
+        MockMultipartFile image = uniqueImage();
+        Long first = productService.addProduct(productRequest("Shared image one"), image, seller).getId();
+        Long second = productService.addProduct(productRequest("Shared image two"), image, seller).getId();
+
+        String filename = filenameOf(first);
+        assertThat(filenameOf(second)).isEqualTo(filename);
+        assertThat(imageBlobRepository.findById(filename)).map(ImageBlob::getRefCount).contains(2);
+
+        productService.deleteProduct(first, seller);
+        assertThat(imageBlobRepository.findById(filename)).map(ImageBlob::getRefCount).contains(1);
+        assertThat(stored(filename)).exists();
+
+        productService.deleteProduct(second, seller);
+        assertThat(imageBlobRepository.findById(filename)).isEmpty();
+        assertThat(stored(filename)).doesNotExist();
+    }
+
+    @Test
+    @WithMockUser(username = "imageBuyer", roles = "USER")
+    void rolledBackDeleteKeepsTheSharedFileAndReference() throws IOException {
+        MockMultipartFile image = uniqueImage();
+        Long ordered = productService.addProduct(productRequest("Ordered image product"), image, seller).getId();
+        Long other = productService.addProduct(productRequest("Other image product"), image, seller).getId();
+        String filename = filenameOf(ordered);
+        orderService.createOrder(orderFor(ordered));
+        productService.deleteProduct(other, seller);
+
+        // The order item still points at the product, so the delete fails at commit
+        assertThatThrownBy(() -> productService.deleteProduct(ordered, seller)).isInstanceOf(RuntimeException.class);
+
+        assertThat(productRepository.findById(ordered)).isPresent();
+        assertThat(imageBlobRepository.findById(filename)).map(ImageBlob::getRefCount).contains(1);
+        assertThat(stored(filename)).exists();
+    }
+
+    private String filenameOf(Long productId) {
+        String imageUrl = productRepository.findById(productId).orElseThrow().getImageUrl();
+        return Paths.get(imageUrl).getFileName().toString();
+    }
+
+    private Path stored(String filename) {
+        return Paths.get(uploadDir).resolve(filename);
+    }
+
+    // A distinct colour per call, so each test works on a file of its own
+    private static MockMultipartFile uniqueImage() throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        int rgb = ThreadLocalRandom.current().nextInt(0x1000000);
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return new MockMultipartFile("image", "photo.png", "image/png", bytes.toByteArray());
+    }
+
+    private static ProductRequestDTO productRequest(String name) {
+        ProductRequestDTO request = new ProductRequestDTO();
+        request.setName(name);
+        request.setDescription(name);
+        request.setPrice(new BigDecimal("10.00"));
+        request.setCategory("Images");
+        request.setBrand("Images");
+        request.setStock(10);
+        return request;
+    }
+
+    private static OrderRequest orderFor(Long productId) {
+        OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        OrderRequest request = new OrderRequest();
+        request.setShippingAddress("1 Test Street");
+        request.setPaymentMethod(Order.PaymentMethod.CASH_ON_DELIVERY);
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private User saveUser(String username, User.Role role) {
+        User user = new User(username, username + "@example.com", "password");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,132 @@
+package com.quickcart.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+    @Test
+    void failedBatchIsRetriedUntilItIsWritten() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(batchUpdate(jdbcTemplate))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(new int[][]{{1}});
+        NotificationDispatcher dispatcher = dispatcher(jdbcTemplate, 3);
+
+        dispatcher.onNotificationsRequested(event(1));
+        dispatcher.stop();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        assertThat(dispatcher.getStats())
+                .containsEntry("written", 1L)
+                .containsEntry("retried", 1L)
+                .containsEntry("failed", 0L);
+    }
+
+    @Test
+    void batchIsCountedAsFailedOnlyOnceTheAttemptsRunOut() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(batchUpdate(jdbcTemplate)).thenThrow(new DataAccessResourceFailureException("database down"));
+        NotificationDispatcher dispatcher = dispatcher(jdbcTemplate, 3);
+
+        dispatcher.onNotificationsRequested(event(1));
+        dispatcher.stop();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        assertThat(dispatcher.getStats())
+                .containsEntry("written", 0L)
+                .containsEntry("retried", 2L)
+                .containsEntry("failed", 1L);
+    }
+
+    @Test
+    void batchThatCanNeverBeWrittenIsNotRetried() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(batchUpdate(jdbcTemplate)).thenThrow(new DataIntegrityViolationException("unknown user"));
+        NotificationDispatcher dispatcher = dispatcher(jdbcTemplate, 3);
+
+        dispatcher.onNotificationsRequested(event(1));
+        dispatcher.stop();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        assertThat(dispatcher.getStats())
+                .containsEntry("retried", 0L)
+                .containsEntry("failed", 1L);
+    }
+
+    @Test
+    void stopLetsTheBatchInHandFinish() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CountDownLatch writing = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        when(batchUpdate(jdbcTemplate)).thenAnswer(invocation -> {
+            writing.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return new int[][]{{1}};
+        });
+        NotificationDispatcher dispatcher = dispatcher(jdbcTemplate, 1);
+
+        dispatcher.onNotificationsRequested(event(1));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        dispatcher.stop();
+
+        assertThat(interrupted).isFalse();
+        assertThat(dispatcher.getStats()).containsEntry("written", 1L).containsEntry("failed", 0L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int[][] batchUpdate(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private static NotificationDispatcher dispatcher(JdbcTemplate jdbcTemplate, int maxAttempts) {
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(dispatcher, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 100);
+        ReflectionTestUtils.setField(dispatcher, "workerCount", 1);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "shutdownTimeoutMs", 5000L);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private static NotificationsRequestedEvent event(int count) {
+        List<NotificationMessage> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notifications.add(new NotificationMessage((long) i + 1, "Order placed", "Thanks", "ORDER",
+                    LocalDateTime.now()));
+        }
+        return new NotificationsRequestedEvent(notifications);
+    }
+}
@@ -0,0 +1,161 @@
+package com.quickcart.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketSessionRegistryTest {
+
+    private static final TextMessage HEARTBEAT = new TextMessage("\n");
+    private static final TextMessage CONNECTED = new TextMessage("CONNECTED\nversion:1.2\n\n\0");
+
+    @Test
+    void writtenMessageFramesSettleTheirPendingBytes() throws IOException {
+        WebSocketSessionRegistry registry = registry(1000, 60_000, 3);
+        WebSocketSession session = session("s1");
+        WebSocketSession metered = registry.register(session);
+
+        registry.messageQueued("s1", 300);
+        registry.messageQueued("s1", 200);
+        assertThat(registry.getStats()).containsEntry("pendingBytes", 500L);
+
+        metered.sendMessage(messageFrame());
+        assertThat(registry.getStats()).containsEntry("pendingBytes", 200L);
+        metered.sendMessage(new BinaryMessage(messageFrame().asBytes()));
+        assertThat(registry.getStats()).containsEntry("pendingBytes", 0L).containsEntry("messagesSent", 2L);
+    }
+
+    @Test
+    void otherFramesLeaveThePendingMessagesAlone() throws IOException {
+        WebSocketSessionRegistry registry = registry(1000, 60_000, 3);
+        WebSocketSession metered = registry.register(session("s1"));
+
+        registry.messageQueued("s1", 300);
+        metered.sendMessage(CONNECTED);
+        metered.sendMessage(HEARTBEAT);
+        metered.sendMessage(new BinaryMessage(new byte[]{'\n'}));
+
+        assertThat(registry.getStats()).containsEntry("pendingBytes", 300L);
+    }
+
+    @Test
+    void droppedMessageIsNoLongerPending() {
+        WebSocketSessionRegistry registry = registry(1000, 60_000, 3);
+        registry.register(session("s1"));
+
+        registry.messageQueued("s1", 300);
+        registry.messageQueued("s1", 200);
+        registry.messageDropped("s1");
+
+        assertThat(registry.getStats()).containsEntry("pendingBytes", 300L);
+    }
+
+    @Test
+    void sessionOverThePendingLimitIsClosedAfterTheStrikeLimit() throws IOException {
+        // Limit: 1000 * 0.75 = 750 bytes
+        WebSocketSessionRegistry registry = registry(1000, 60_000, 3);
+        WebSocketSession session = session("s1");
+        registry.register(session);
+        registry.messageQueued("s1", 800);
+
+        registry.checkSlowConsumers();
+        registry.checkSlowConsumers();
+        verify(session, never()).close(any());
+        assertThat(registry.getStats()).containsEntry("slowConsumers", 1L);
+
+        registry.checkSlowConsumers();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(registry.getStats()).containsEntry("slowConsumerCloses", 1L);
+    }
+
+    @Test
+    void healthyCheckClearsTheStrikes() throws IOException {
+        WebSocketSessionRegistry registry = registry(1000, 60_000, 3);
+        WebSocketSession session = session("s1");
+        WebSocketSession metered = registry.register(session);
+
+        registry.messageQueued("s1", 800);
+        registry.checkSlowConsumers();
+        registry.checkSlowConsumers();
+        metered.sendMessage(messageFrame());
+        registry.checkSlowConsumers();
+        registry.messageQueued("s1", 800);
+        registry.checkSlowConsumers();
+        registry.checkSlowConsumers();
+
+        verify(session, never()).close(any());
+        assertThat(registry.getStats()).containsEntry("slowConsumerCloses", 0L);
+    }
+
+    @Test
+    void messageWaitingTooLongCountsAsSlow() throws IOException {
+        WebSocketSessionRegistry registry = registry(1000, 0, 1);
+        WebSocketSession session = session("s1");
+        registry.register(session);
+
+        registry.messageQueued("s1", 10);
+        sleepPastTheClock();
+        registry.checkSlowConsumers();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void userIndexFollowsBindAndUnregister() {
+        WebSocketSessionRegistry registry = registry(1000, 60_000, 3);
+        registry.register(session("s1"));
+        registry.register(session("s2"));
+        registry.bindUser("s1", 7L);
+        registry.bindUser("s2", 7L);
+
+        assertThat(registry.getSessionIds(7L)).containsExactlyInAnyOrder("s1", "s2");
+
+        registry.unregister("s1");
+        assertThat(registry.getSessionIds(7L)).containsExactly("s2");
+        registry.unregister("s2");
+        assertThat(registry.getSessionIds(7L)).isEmpty();
+        assertThat(registry.getStats()).containsEntry("users", 0L);
+    }
+
+    private static WebSocketSessionRegistry registry(int sendBufferLimitBytes, long slowSendMs, int maxStrikes) {
+        WebSocketSessionRegistry registry = new WebSocketSessionRegistry();
+        ReflectionTestUtils.setField(registry, "maxConnections", 100);
+        ReflectionTestUtils.setField(registry, "sendBufferLimitBytes", sendBufferLimitBytes);
+        ReflectionTestUtils.setField(registry, "slowPendingRatio", 0.75);
+        ReflectionTestUtils.setField(registry, "slowSendMs", slowSendMs);
+        ReflectionTestUtils.setField(registry, "maxStrikes", maxStrikes);
+        return registry;
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    private static TextMessage messageFrame() {
+        return new TextMessage("MESSAGE\ndestination:/user/queue/notifications\n\n[]\0"
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sleepPastTheClock() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.quickcart.migration;
+
+import com.quickcart.entity.Cart;
+import com.quickcart.entity.Order;
+import com.quickcart.entity.Product;
+import com.quickcart.entity.SellerOrder;
+import com.quickcart.entity.User;
+import com.quickcart.payload.OrderRequest;
+import com.quickcart.repository.CartRepository;
+import com.quickcart.repository.DataMigrationRepository;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.repository.SellerOrderRepository;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SellerDataBackfillTest {
+
+    @Autowired
+    private SellerDataBackfill sellerDataBackfill;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Autowired
+    private SellerOrderRepository sellerOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = userRepository.findByUsername("backfillSeller")
+                .orElseGet(() -> saveUser("backfillSeller", User.Role.SELLER));
+        User buyer = userRepository.findByUsername("backfillBuyer")
+                .orElseGet(() -> saveUser("backfillBuyer", User.Role.USER));
+        if (cartRepository.findByUserId(buyer.getId()).isEmpty()) {
+            Cart cart = new Cart();
+            cart.setUser(buyer);
+            cartRepository.save(cart);
+        }
+    }
+
+    @Test
+    void backfillsAreMarkedAppliedAtStartup() {
+        assertThat(dataMigrationRepository.findById(SellerDataBackfill.SELLER_ORDERS))
+                .hasValueSatisfying(migration -> assertThat(migration.getAppliedAt()).isNotNull());
+        assertThat(dataMigrationRepository.findById(SellerDataBackfill.SELLER_DAILY_EARNINGS))
+                .hasValueSatisfying(migration -> assertThat(migration.getAppliedAt()).isNotNull());
+    }
+
+    @Test
+    @WithMockUser(username = "backfillBuyer", roles = "USER")
+    void rerunFillsMissingLinksWithoutDoublingEarnings() {
+        Order order = orderService.createOrder(orderFor(saveProduct("Backfill lamp")));
+        orderService.updateOrderStatus(order.getId(), Order.OrderStatus.DELIVERED, seller);
+        double earnings = orderService.getSellerEarnings(seller).getDaily();
+        // The order's link went missing, and the seller already has rows: emptiness says nothing
+        sellerOrderRepository.deleteAll(linksOf(order));
+        assertThat(sellerOrderRepository.count()).isPositive();
+
+        sellerDataBackfill.start();
+        assertThat(linksOf(order)).isEmpty();
+
+        dataMigrationRepository.deleteAll();
+        sellerDataBackfill.start();
+        assertThat(linksOf(order)).singleElement()
+                .satisfies(link -> assertThat(link.getStatus()).isEqualTo(Order.OrderStatus.DELIVERED));
+        assertThat(orderService.getSellerEarnings(seller).getDaily()).isEqualTo(earnings);
+    }
+
+    private List<SellerOrder> linksOf(Order order) {
+        return sellerOrderRepository.findAll().stream()
+                .filter(link -> link.getOrderId().equals(order.getId()))
+                .toList();
+    }
+
+    private Long saveProduct(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setPrice(new BigDecimal("15.00"));
+        product.setStock(10);
+        product.setCategory("Backfill");
+        product.setBrand("Backfill");
+        product.setSeller(seller);
+        return productRepository.save(product).getId();
+    }
+
+    private static OrderRequest orderFor(Long productId) {
+        OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        OrderRequest request = new OrderRequest();
+        request.setShippingAddress("1 Test Street");
+        request.setPaymentMethod(Order.PaymentMethod.CASH_ON_DELIVERY);
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private User saveUser(String username, User.Role role) {
+        User user = new User(username, username + "@example.com", "password");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,162 @@
+package com.quickcart.search;
+
+import com.quickcart.repository.ProductCursor;
+import com.quickcart.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final ProductSearchFilter NO_FILTER = ProductSearchFilter.builder().build();
+
+    @Test
+    void lastTokenMatchesAsPrefixButNotAsSubstring() {
+        ProductSearchIndex index = indexOf(List.of(
+                document(1L, "Linen shirt", "Acme", "10.00"),
+                document(2L, "Shirtdress", "Acme", "10.00"),
+                document(3L, "T-shirt", "Acme", "10.00")));
+
+        assertThat(ids(index.search("shir", NO_FILTER, null, 0, 10, false))).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids(index.search("hirt", NO_FILTER, null, 0, 10, false))).isEmpty();
+        // Only the last token expands, so "shir linen" needs the whole word "shir"
+        assertThat(ids(index.search("shir linen", NO_FILTER, null, 0, 10, false))).isEmpty();
+        assertThat(ids(index.search("linen shir", NO_FILTER, null, 0, 10, false))).containsExactly(1L);
+    }
+
+    @Test
+    void wholeWordAndNameMatchesRankFirst() {
+        ProductSearchIndex index = indexOf(List.of(
+                new ProductSearchDocument(1L, "Plain tee", "A shirt for every day", "Acme", "Tops",
+                        null, null, new BigDecimal("10.00"), null, true, CREATED),
+                document(2L, "Shirts multipack", "Acme", "10.00"),
+                document(3L, "Oxford shirt", "Acme", "10.00")));
+
+        assertThat(ids(index.search("shirt", NO_FILTER, null, 0, 10, false))).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void filtersApplyBeforeTheTopKSoTotalsAreExactForBroadTerms() {
+        List<ProductSearchDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            documents.add(document(id, "Cotton shirt " + id, id % 1000 == 0 ? "Rare" : "Acme", "20.00"));
+        }
+        ProductSearchIndex index = indexOf(documents);
+        ProductSearchFilter rareBrand = ProductSearchFilter.builder().brand("rare").build();
+
+        ProductSearchHits all = index.search("shirt", NO_FILTER, null, 0, 20, false);
+        ProductSearchHits firstPage = index.search("shirt", rareBrand, null, 0, 2, false);
+        ProductSearchHits lastPage = index.search("shirt", rareBrand, null, 4, 2, false);
+
+        assertThat(all.getTotal()).isEqualTo(5000);
+        assertThat(all.getDocuments()).hasSize(20);
+        assertThat(firstPage.getTotal()).isEqualTo(5);
+        assertThat(ids(firstPage)).containsExactly(1000L, 2000L);
+        assertThat(ids(lastPage)).containsExactly(5000L);
+    }
+
+    @Test
+    void filterRulesMatchTheSqlSpecification() {
+        ProductSearchIndex index = indexOf(List.of(
+                new ProductSearchDocument(1L, "Runner shoe", null, "Acme", "Shoes", "Red", "42",
+                        new BigDecimal("50.00"), new BigDecimal("10"), true, CREATED),
+                new ProductSearchDocument(2L, "Trail shoe", null, "Acme", "Shoes", "Blue", "M",
+                        new BigDecimal("80.00"), null, true, CREATED),
+                new ProductSearchDocument(3L, "Court shoe", null, "Acme", "Shoes", "red", "M",
+                        new BigDecimal("120.00"), new BigDecimal("30"), false, CREATED)));
+
+        assertThat(ids(index.search("shoe", ProductSearchFilter.builder().color("RED").build(), null, 0, 10, false)))
+                .containsExactlyInAnyOrder(1L, 3L);
+        // A numeric size is the page size, not a filter
+        assertThat(ids(index.search("shoe", ProductSearchFilter.builder().size("20").build(), null, 0, 10, false)))
+                .hasSize(3);
+        assertThat(ids(index.search("shoe", ProductSearchFilter.builder().size("m").available(true).build(), null, 0, 10, false)))
+                .containsExactly(2L);
+        assertThat(ids(index.search("shoe", ProductSearchFilter.builder().minPrice(50.0).maxPrice(80.0).build(), null, 0, 10, false)))
+                .containsExactlyInAnyOrder(1L, 2L);
+        // No discount never satisfies a minimum discount
+        assertThat(ids(index.search("shoe", ProductSearchFilter.builder().minDiscount(BigDecimal.ONE).build(), null, 0, 10, false)))
+                .containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void facetsCountEveryMatchWithTheSqlBucketLabels() {
+        ProductSearchIndex index = indexOf(List.of(
+                new ProductSearchDocument(1L, "Wool scarf", null, "Acme", "Accessories", "Grey", null,
+                        new BigDecimal("30.00"), null, true, CREATED),
+                new ProductSearchDocument(2L, "Silk scarf", null, "Luxe", "Accessories", "Grey", null,
+                        new BigDecimal("600.00"), new BigDecimal("25"), true, CREATED),
+                new ProductSearchDocument(3L, "Knit scarf", null, "Acme", "Accessories", null, null,
+                        new BigDecimal("24.99"), new BigDecimal("5"), true, CREATED)));
+
+        ProductSearchHits hits = index.search("scarf", NO_FILTER, null, 0, 1, true);
+
+        assertThat(hits.getDocuments()).hasSize(1);
+        assertThat(hits.getFacets()).containsOnlyKeys("category", "brand", "color", "size", "price", "discount");
+        assertThat(hits.getFacets().get("brand")).containsExactly(entry("Acme", 2L), entry("Luxe", 1L));
+        assertThat(hits.getFacets().get("color")).containsExactly(entry("Grey", 2L));
+        assertThat(hits.getFacets().get("size")).isEmpty();
+        assertThat(hits.getFacets().get("price")).containsExactly(entry("0-25", 1L), entry("25-50", 1L), entry("500+", 1L));
+        assertThat(hits.getFacets().get("discount")).containsExactly(entry("0-1", 1L), entry("1-10", 1L), entry("25-50", 1L));
+    }
+
+    @Test
+    void keysetSlicesWalkTheSameOrderAsSortedPages() {
+        List<ProductSearchDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            // Repeating prices, so the id tie-breaker matters
+            documents.add(document(id, "Canvas bag " + id, "Acme", (10 + id % 4) + ".00"));
+        }
+        ProductSearchIndex index = indexOf(documents);
+        Sort.Order priceDesc = Sort.Order.desc("price");
+
+        List<Long> sorted = ids(index.search("bag", NO_FILTER, priceDesc, 0, 25, false));
+        List<Long> walked = new ArrayList<>();
+        ProductCursor after = null;
+        List<ProductSearchDocument> slice;
+        do {
+            slice = index.searchAfter("bag", NO_FILTER, priceDesc, after, 4);
+            slice.forEach(document -> walked.add(document.getId()));
+            after = slice.isEmpty() ? null : ProductCursor.after(priceDesc, slice.get(slice.size() - 1));
+        } while (slice.size() == 4);
+
+        assertThat(sorted).hasSize(25);
+        assertThat(walked).isEqualTo(sorted);
+        assertThat(ids(index.search("bag", NO_FILTER, priceDesc, 4, 4, false))).isEqualTo(sorted.subList(4, 8));
+    }
+
+    private static ProductSearchIndex indexOf(List<ProductSearchDocument> documents) {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findSearchDocuments(anyLong(), any(Pageable.class))).thenReturn(documents, List.of());
+
+        ProductSearchIndex index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "productRepository", repository);
+        ReflectionTestUtils.setField(index, "maxPrefixTerms", 200);
+        ReflectionTestUtils.setField(index, "buildBatchSize", documents.size());
+        index.build();
+        return index;
+    }
+
+    private static ProductSearchDocument document(long id, String name, String brand, String price) {
+        return new ProductSearchDocument(id, name, null, brand, null, null, null,
+                new BigDecimal(price), null, true, CREATED);
+    }
+
+    private static List<Long> ids(ProductSearchHits hits) {
+        return hits.getDocuments().stream().map(ProductSearchDocument::getId).toList();
+    }
+}
@@ -0,0 +1,255 @@
+package com.quickcart.service.impl;
+
+import com.quickcart.cache.ProductCache;
+import com.quickcart.entity.Product;
+import com.quickcart.entity.User;
+import com.quickcart.inventory.StockReservationLedger;
+import com.quickcart.payload.CartDeltaDTO;
+import com.quickcart.payload.CartItemRequest;
+import com.quickcart.payload.CartResponseDTO;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.service.CartService;
+import com.quickcart.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CartServiceImplTest {
+
+    private static final int ITEM_COUNT = 20;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User shopper;
+
+    @BeforeEach
+    void setUp() {
+        shopper = userRepository.findByUsername("cartShopper").orElse(null);
+        if (shopper != null) {
+            return;
+        }
+        User seller = new User("cartSeller", "cartSeller@example.com", "password");
+        seller.setRole(User.Role.SELLER);
+        seller = userRepository.save(seller);
+
+        shopper = new User("cartShopper", "cartShopper@example.com", "password");
+        shopper.setRole(User.Role.USER);
+        shopper = userRepository.save(shopper);
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            Product product = new Product();
+            product.setName("Cart product " + i);
+            product.setDescription("Cart test product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setDiscountPercentage(new BigDecimal("10.00"));
+            product.setStock(100);
+            product.setSeller(seller);
+            product = productRepository.save(product);
+
+            CartItemRequest request = new CartItemRequest();
+            request.setProductId(product.getId());
+            request.setQuantity(2);
+            cartService.addItemToCart(shopper.getId(), request);
+        }
+    }
+
+    @Test
+    void cartViewIsOneQueryWithServerTotals() {
+        SqlStatementCounter.reset();
+        CartResponseDTO cart = cartService.getCartView(shopper.getId());
+
+        assertThat(cart.getCartItems()).hasSize(ITEM_COUNT);
+        assertThat(SqlStatementCounter.selects()).isLessThanOrEqualTo(1);
+        assertThat(cart.getItemCount()).isEqualTo(ITEM_COUNT * 2);
+        assertThat(cart.getSubtotal()).isEqualByComparingTo("400.00");
+        assertThat(cart.getDiscount()).isEqualByComparingTo("40.00");
+        assertThat(cart.getTotal()).isEqualByComparingTo("360.00");
+        assertThat(cart.getCartItems()).allMatch(item -> item.getLineTotal().compareTo(new BigDecimal("18.00")) == 0);
+    }
+
+    @Test
+    void cartMutationReplacesTheSnapshot() {
+        cartService.getCartView(shopper.getId());
+        SqlStatementCounter.reset();
+        cartService.getCartView(shopper.getId());
+        assertThat(SqlStatementCounter.selects()).isZero();
+
+        CartResponseDTO.CartItemDTO item = cartService.getCartView(shopper.getId()).getCartItems().iterator().next();
+        cartService.updateItemQuantity(shopper.getId(), item.getId(), 3);
+        try {
+            CartResponseDTO updated = cartService.getCartView(shopper.getId());
+            assertThat(updated.getItemCount()).isEqualTo(ITEM_COUNT * 2 + 1);
+        } finally {
+            cartService.updateItemQuantity(shopper.getId(), item.getId(), 2);
+        }
+    }
+
+    @Test
+    void snapshotOutlivesChangesToProductsOutsideTheCart() {
+        User seller = userRepository.findByUsername("cartSeller").orElseThrow();
+        Product other = new Product();
+        other.setName("Not in the cart");
+        other.setDescription("Cart snapshot test product");
+        other.setPrice(new BigDecimal("5.00"));
+        other.setStock(10);
+        other.setSeller(seller);
+        Long otherId = productRepository.save(other).getId();
+        CartResponseDTO cart = cartService.getCartView(shopper.getId());
+
+        productCache.invalidateInPlace(List.of(otherId));
+        SqlStatementCounter.reset();
+        cartService.getCartView(shopper.getId());
+        assertThat(SqlStatementCounter.selects()).isZero();
+
+        productCache.invalidateInPlace(List.of(cart.getCartItems().iterator().next().getProduct().getId()));
+        SqlStatementCounter.reset();
+        cartService.getCartView(shopper.getId());
+        assertThat(SqlStatementCounter.selects()).isEqualTo(1);
+    }
+
+    @Test
+    void cartMutationsRunAFixedNumberOfStatements() {
+        CartResponseDTO.CartItemDTO item = cartService.getCartView(shopper.getId()).getCartItems().iterator().next();
+        CartItemRequest request = new CartItemRequest();
+        request.setProductId(item.getProduct().getId());
+        request.setQuantity(1);
+
+        SqlStatementCounter.reset();
+        CartDeltaDTO added = cartService.addItemToCart(shopper.getId(), request);
+        try {
+            // Cart slot, product, quantity update and totals; the cart is not reloaded
+            assertThat(SqlStatementCounter.count(sql -> true)).isLessThanOrEqualTo(4);
+            assertThat(added.getItem().getId()).isEqualTo(item.getId());
+            assertThat(added.getItem().getQuantity()).isEqualTo(3);
+            assertThat(added.getItemCount()).isEqualTo(ITEM_COUNT * 2 + 1);
+            assertThat(added.getTotal()).isEqualByComparingTo("369.00");
+            assertThat(cartService.getCartView(shopper.getId()).getTotal()).isEqualByComparingTo(added.getTotal());
+        } finally {
+            SqlStatementCounter.reset();
+            CartDeltaDTO updated = cartService.updateItemQuantity(shopper.getId(), item.getId(), 2);
+            assertThat(SqlStatementCounter.count(sql -> true)).isLessThanOrEqualTo(3);
+            assertThat(updated.getTotal()).isEqualByComparingTo("360.00");
+        }
+    }
+
+    @Test
+    void batchAddValidatesAndWritesAllItemsInOnePass() {
+        User seller = userRepository.findByUsername("cartSeller").orElseThrow();
+        List<CartItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setName("Batch product " + i);
+            product.setDescription("Cart batch test product " + i);
+            product.setPrice(new BigDecimal("5.00"));
+            product.setStock(100);
+            product.setSeller(seller);
+            requests.add(request(productRepository.save(product).getId(), 1));
+        }
+        requests.add(request(requests.get(0).getProductId(), 1)); // merged with the first entry
+        CartResponseDTO.CartItemDTO existing = cartService.getCartView(shopper.getId()).getCartItems().iterator().next();
+        requests.add(request(existing.getProduct().getId(), 1));
+
+        SqlStatementCounter.reset();
+        CartResponseDTO cart = cartService.addItemsToCart(shopper.getId(), requests);
+        try {
+            // Cart slots, products and the cart view; the writes go out as JDBC batches
+            assertThat(SqlStatementCounter.selects()).isLessThanOrEqualTo(3);
+            assertThat(cart.getCartItems()).hasSize(ITEM_COUNT + 3);
+            assertThat(cart.getItemCount()).isEqualTo(ITEM_COUNT * 2 + 5);
+            assertThat(cart.getTotal()).isEqualByComparingTo("389.00");
+        } finally {
+            for (CartResponseDTO.CartItemDTO item : cart.getCartItems()) {
+                if (item.getProduct().getName().startsWith("Batch product")) {
+                    cartService.removeItemFromCart(shopper.getId(), item.getId());
+                }
+            }
+            cartService.updateItemQuantity(shopper.getId(), existing.getId(), 2);
+        }
+    }
+
+    @Test
+    void rolledBackAddAndUpdateGiveTheirHoldsBack() {
+        User seller = userRepository.findByUsername("cartSeller").orElseThrow();
+        Product product = new Product();
+        product.setName("Rollback product");
+        product.setDescription("Cart rollback test product");
+        product.setPrice(new BigDecimal("5.00"));
+        product.setStock(10);
+        product.setSeller(seller);
+        Long productId = productRepository.save(product).getId();
+
+        inRolledBackTransaction(() -> cartService.addItemToCart(shopper.getId(), request(productId, 3)));
+        assertThat(stockReservationLedger.availableStock(productId, 10)).isEqualTo(10);
+
+        CartResponseDTO.CartItemDTO item = cartService.getCartView(shopper.getId()).getCartItems().iterator().next();
+        Long heldProductId = item.getProduct().getId();
+        int available = stockReservationLedger.availableStock(heldProductId, 100);
+        inRolledBackTransaction(() -> cartService.updateItemQuantity(shopper.getId(), item.getId(), item.getQuantity() + 5));
+        assertThat(stockReservationLedger.availableStock(heldProductId, 100)).isEqualTo(available);
+        inRolledBackTransaction(() -> cartService.removeItemFromCart(shopper.getId(), item.getId()));
+        assertThat(stockReservationLedger.availableStock(heldProductId, 100)).isEqualTo(available);
+    }
+
+    @Test
+    void rolledBackBatchAddRestoresThePreviousHolds() {
+        User seller = userRepository.findByUsername("cartSeller").orElseThrow();
+        Product product = new Product();
+        product.setName("Batch rollback product");
+        product.setDescription("Cart batch rollback test product");
+        product.setPrice(new BigDecimal("5.00"));
+        product.setStock(10);
+        product.setSeller(seller);
+        Long newProductId = productRepository.save(product).getId();
+        Long heldProductId = cartService.getCartView(shopper.getId()).getCartItems().iterator().next().getProduct().getId();
+        int available = stockReservationLedger.availableStock(heldProductId, 100);
+
+        inRolledBackTransaction(() -> cartService.addItemsToCart(shopper.getId(),
+                List.of(request(newProductId, 4), request(heldProductId, 3))));
+
+        assertThat(stockReservationLedger.availableStock(newProductId, 10)).isEqualTo(10);
+        assertThat(stockReservationLedger.availableStock(heldProductId, 100)).isEqualTo(available);
+    }
+
+    private void inRolledBackTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            action.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    private static CartItemRequest request(Long productId, int quantity) {
+        CartItemRequest request = new CartItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
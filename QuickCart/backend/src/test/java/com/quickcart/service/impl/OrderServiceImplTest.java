@@ -0,0 +1,237 @@
+package com.quickcart.service.impl;
+
+import com.quickcart.entity.Cart;
+import com.quickcart.entity.Order;
+import com.quickcart.entity.Product;
+import com.quickcart.entity.User;
+import com.quickcart.exception.BadRequestException;
+import com.quickcart.payload.CartItemRequest;
+import com.quickcart.payload.CheckoutRequest;
+import com.quickcart.payload.OrderRequest;
+import com.quickcart.repository.CartRepository;
+import com.quickcart.repository.NotificationRepository;
+import com.quickcart.repository.OrderRepository;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.service.CartService;
+import com.quickcart.service.OrderService;
+import com.quickcart.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceImplTest {
+
+    private static final int PRODUCT_COUNT = 30;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = userRepository.findByUsername("seller")
+                .orElseGet(() -> saveUser("seller", User.Role.SELLER));
+        User buyer = userRepository.findByUsername("buyer")
+                .orElseGet(() -> saveUser("buyer", User.Role.USER));
+        if (cartRepository.findByUserId(buyer.getId()).isEmpty()) {
+            Cart cart = new Cart();
+            cart.setUser(buyer);
+            cartRepository.save(cart);
+        }
+
+        productIds.clear();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setDescription("Test product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setStock(100);
+            product.setCategory("Test");
+            product.setBrand("Test");
+            product.setSeller(seller);
+            productIds.add(productRepository.save(product).getId());
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "buyer", roles = "USER")
+    void createOrderLoadsAllProductsWithOneStatement() {
+        SqlStatementCounter.reset();
+
+        Order order = orderService.createOrder(orderFor(productIds));
+
+        assertThat(order.getItems()).hasSize(PRODUCT_COUNT);
+        assertThat(SqlStatementCounter.selectsFrom("products")).isEqualTo(1);
+    }
+
+    @Test
+    @WithMockUser(username = "buyer", roles = "USER")
+    void createOrderSelectCountDoesNotGrowWithLineCount() {
+        SqlStatementCounter.reset();
+        orderService.createOrder(orderFor(productIds.subList(0, 1)));
+        long singleLineSelects = SqlStatementCounter.selects();
+
+        SqlStatementCounter.reset();
+        orderService.createOrder(orderFor(productIds.subList(1, PRODUCT_COUNT)));
+        long manyLineSelects = SqlStatementCounter.selects();
+
+        assertThat(manyLineSelects).isEqualTo(singleLineSelects);
+    }
+
+    @Test
+    void checkoutPlacesOneOrderPerIdempotencyKey() {
+        Long buyerId = userRepository.findByUsername("buyer").orElseThrow().getId();
+        cartService.addItemsToCart(buyerId, cartItemsFor(productIds.subList(0, 5)));
+
+        SqlStatementCounter.reset();
+        Order order = orderService.checkoutCart(buyerId, checkoutRequest(), "checkout-once");
+
+        assertThat(order.getItems()).hasSize(5);
+        assertThat(SqlStatementCounter.count(sql -> sql.startsWith("delete from cart_items"))).isEqualTo(1);
+        assertThat(cartService.getCartView(buyerId).getCartItems()).isEmpty();
+
+        // A retry with the same key must not take stock again, even with a refilled cart
+        cartService.addItemsToCart(buyerId, cartItemsFor(productIds.subList(0, 5)));
+        try {
+            assertThatThrownBy(() -> orderService.checkoutCart(buyerId, checkoutRequest(), "checkout-once"))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+            assertThat(orderService.findOrderByIdempotencyKey(buyerId, "checkout-once"))
+                    .hasValueSatisfying(original -> assertThat(original.getId()).isEqualTo(order.getId()));
+            assertThat(productRepository.findById(productIds.get(0)).orElseThrow().getStock()).isEqualTo(99);
+        } finally {
+            cartService.clearCart(buyerId);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "buyer", roles = "USER")
+    void deliveredRevenueEntersAndLeavesTheDailyRollup() {
+        Order order = orderService.createOrder(orderFor(productIds.subList(0, 3)));
+        double before = orderService.getSellerEarnings(seller).getDaily();
+
+        orderService.updateOrderStatus(order.getId(), Order.OrderStatus.DELIVERED, seller);
+        assertThat(orderService.getSellerEarnings(seller).getDaily()).isEqualTo(before + 30.0);
+
+        // Leaving DELIVERED takes the revenue back out
+        orderService.updateOrderStatus(order.getId(), Order.OrderStatus.SHIPPED, seller);
+        assertThat(orderService.getSellerEarnings(seller).getDaily()).isEqualTo(before);
+    }
+
+    @Test
+    @WithMockUser(username = "buyer", roles = "USER")
+    void staleStatusUpdateIsRejectedSoRevenueIsCountedOnce() {
+        Order order = orderService.createOrder(orderFor(productIds.subList(0, 2)));
+        double before = orderService.getSellerEarnings(seller).getDaily();
+
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // This transaction reads the order as PENDING ...
+            orderRepository.findById(order.getId()).orElseThrow();
+            // ... while another one delivers it and commits
+            requiresNew.executeWithoutResult(other ->
+                    orderService.updateOrderStatus(order.getId(), Order.OrderStatus.DELIVERED, seller));
+            orderService.updateOrderStatus(order.getId(), Order.OrderStatus.DELIVERED, seller);
+        })).isInstanceOf(BadRequestException.class);
+
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.DELIVERED);
+        assertThat(orderService.getSellerEarnings(seller).getDaily()).isEqualTo(before + 20.0);
+    }
+
+    @Test
+    @WithMockUser(username = "buyer", roles = "USER")
+    void orderConfirmationIsStoredByTheBackgroundWriter() throws InterruptedException {
+        User buyer = userRepository.findByUsername("buyer").orElseThrow();
+        long unread = notificationRepository.countByUserAndIsReadFalse(buyer);
+
+        orderService.createOrder(orderFor(productIds.subList(0, 1)));
+
+        // Written off the request thread, and only kept if the writer commits
+        long deadline = System.currentTimeMillis() + 5000;
+        while (notificationRepository.countByUserAndIsReadFalse(buyer) == unread
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(notificationRepository.countByUserAndIsReadFalse(buyer)).isEqualTo(unread + 1);
+    }
+
+    private List<CartItemRequest> cartItemsFor(List<Long> ids) {
+        List<CartItemRequest> items = new ArrayList<>();
+        for (Long id : ids) {
+            CartItemRequest item = new CartItemRequest();
+            item.setProductId(id);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private CheckoutRequest checkoutRequest() {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setShippingAddress("1 Test Street");
+        request.setPaymentMethod(Order.PaymentMethod.CASH_ON_DELIVERY);
+        return request;
+    }
+
+    private OrderRequest orderFor(List<Long> ids) {
+        List<OrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (Long id : ids) {
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setProductId(id);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        OrderRequest request = new OrderRequest();
+        request.setShippingAddress("1 Test Street");
+        request.setPaymentMethod(Order.PaymentMethod.CASH_ON_DELIVERY);
+        request.setItems(items);
+        return request;
+    }
+
+    private User saveUser(String username, User.Role role) {
+        User user = new User(username, username + "@example.com", "password");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,124 @@
+package com.quickcart.service.impl;
+
+import com.quickcart.entity.Product;
+import com.quickcart.entity.User;
+import com.quickcart.payload.FacetedPage;
+import com.quickcart.payload.ProductResponseDTO;
+import com.quickcart.repository.ProductRepository;
+import com.quickcart.repository.UserRepository;
+import com.quickcart.service.ProductService;
+import com.quickcart.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceImplTest {
+
+    private static final int PRODUCT_COUNT = 100;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = userRepository.findByUsername("listingSeller").orElse(null);
+        if (seller != null) {
+            return;
+        }
+        seller = new User("listingSeller", "listingSeller@example.com", "password");
+        seller.setRole(User.Role.SELLER);
+        seller = userRepository.save(seller);
+
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("Listing product " + i);
+            product.setDescription("Listing test product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setStock(100);
+            product.setCategory("Listing");
+            product.setBrand("Listing");
+            product.setSeller(seller);
+            productRepository.save(product);
+        }
+    }
+
+    @Test
+    void sellerPageSelectCountDoesNotGrowWithPageSize() {
+        SqlStatementCounter.reset();
+        Page<ProductResponseDTO> single = productService.getProductsBySeller(seller, PageRequest.of(0, 1));
+        long singleSelects = SqlStatementCounter.selects();
+
+        SqlStatementCounter.reset();
+        Page<ProductResponseDTO> full = productService.getProductsBySeller(seller, PageRequest.of(0, PRODUCT_COUNT));
+        long fullSelects = SqlStatementCounter.selects();
+
+        assertThat(single.getContent()).hasSize(1);
+        assertThat(full.getContent()).hasSize(PRODUCT_COUNT);
+        assertThat(full.getContent()).allMatch(dto -> "listingSeller".equals(dto.getSellerUsername()));
+        assertThat(fullSelects).isEqualTo(singleSelects);
+        assertThat(SqlStatementCounter.selectsFrom("users")).isZero();
+    }
+
+    @Test
+    void filteredPageLoadsSellersWithTheProducts() {
+        SqlStatementCounter.reset();
+        Page<ProductResponseDTO> page = productService.searchAndFilterProducts(
+                null, "Listing", null, null, null, null, null, null, null, null, false, PageRequest.of(0, PRODUCT_COUNT));
+
+        assertThat(page.getContent()).hasSize(PRODUCT_COUNT);
+        assertThat(SqlStatementCounter.selectsFrom("users")).isZero();
+    }
+
+    @Test
+    void facetsCountEachValueOnceWhateverItCombinesWith() {
+        saveProduct("Facet tee", "Facets", "Acme", "Red", "S", "20.00");
+        saveProduct("Facet polo", "Facets", "Acme", "Blue", "M", "40.00");
+        saveProduct("Facet shirt", "Facets", "Acme", "Green", "M", "60.00");
+        saveProduct("Facet cap", "Facets", "Other", "Red", null, "45.00");
+
+        SqlStatementCounter.reset();
+        FacetedPage<ProductResponseDTO> page = (FacetedPage<ProductResponseDTO>) productService.searchAndFilterProducts(
+                null, "Facets", null, null, null, null, null, null, null, null, true, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getFacets().get("brand")).containsExactly(entry("Acme", 3L), entry("Other", 1L));
+        assertThat(page.getFacets().get("color")).containsExactly(entry("Red", 2L), entry("Blue", 1L), entry("Green", 1L));
+        assertThat(page.getFacets().get("size")).containsExactly(entry("M", 2L), entry("S", 1L));
+        assertThat(page.getFacets().get("price")).containsExactly(entry("0-25", 1L), entry("25-50", 2L), entry("50-100", 1L));
+        assertThat(page.getFacets().get("discount")).containsExactly(entry("0-1", 4L));
+        assertThat(SqlStatementCounter.count(sql -> sql.contains("union all"))).isEqualTo(1);
+    }
+
+    private void saveProduct(String name, String category, String brand, String color, String size, String price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setPrice(new BigDecimal(price));
+        product.setStock(10);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setColor(color);
+        product.setSize(size);
+        product.setSeller(seller);
+        productRepository.save(product);
+    }
+}
@@ -0,0 +1,81 @@
+package com.quickcart.support;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnection;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+import org.springframework.messaging.tcp.TcpOperations;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for the external STOMP broker's TCP connection. Every connection is accepted,
+ * CONNECT is answered with CONNECTED, and every frame the relay writes is recorded so
+ * tests can assert on what would have reached the shared broker.
+ */
+public class InProcessStompRelay implements TcpOperations<byte[]> {
+
+    private final List<StompHeaderAccessor> sentFrames = new CopyOnWriteArrayList<>();
+
+    @Override
+    public CompletableFuture<Void> connectAsync(TcpConnectionHandler<byte[]> handler) {
+        handler.afterConnected(new Connection(handler));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync(TcpConnectionHandler<byte[]> handler, ReconnectStrategy reconnectStrategy) {
+        return connectAsync(handler);
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdownAsync() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public List<StompHeaderAccessor> getSentFrames() {
+        return sentFrames;
+    }
+
+    private class Connection implements TcpConnection<byte[]> {
+
+        private final TcpConnectionHandler<byte[]> handler;
+
+        Connection(TcpConnectionHandler<byte[]> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public CompletableFuture<Void> sendAsync(Message<byte[]> message) {
+            StompHeaderAccessor frame = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            if (frame == null) {
+                frame = StompHeaderAccessor.wrap(message);
+            }
+            sentFrames.add(frame);
+            if (StompCommand.CONNECT.equals(frame.getCommand()) || StompCommand.STOMP.equals(frame.getCommand())) {
+                StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+                connected.setLeaveMutable(true);
+                handler.handleMessage(MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders()));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void onReadInactivity(Runnable runnable, long duration) {
+        }
+
+        @Override
+        public void onWriteInactivity(Runnable runnable, long duration) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
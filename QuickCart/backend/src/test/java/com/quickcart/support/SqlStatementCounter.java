@@ -0,0 +1,39 @@
+package com.quickcart.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Records every SQL statement Hibernate prepares so tests can assert on query counts.
+ * Registered through hibernate.session_factory.statement_inspector in the test profile.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql.toLowerCase(Locale.ROOT));
+        return sql;
+    }
+
+    public static void reset() {
+        statements.clear();
+    }
+
+    public static long count(Predicate<String> filter) {
+        return statements.stream().filter(filter).count();
+    }
+
+    public static long selectsFrom(String table) {
+        return count(sql -> sql.startsWith("select") && sql.contains(" from " + table + " "));
+    }
+
+    public static long selects() {
+        return count(sql -> sql.startsWith("select"));
+    }
+}
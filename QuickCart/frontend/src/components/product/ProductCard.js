@@ -7,10 +7,12 @@ const ProductCard = ({ product }) => {
   const navigate = useNavigate();
 
 
-  const imageSrc = product.imageUrl
-    ? product.imageUrl.startsWith('http')
-      ? product.imageUrl
-      : `http://localhost:8080${product.imageUrl.replace(/\/product-images\/product-images\//, '/product-images/')}`
+  // Card-sized rendition; the backend falls back to the original until it is encoded
+  const cardImageUrl = product.cardImageUrl || product.imageUrl;
+  const imageSrc = cardImageUrl
+    ? cardImageUrl.startsWith('http')
+      ? cardImageUrl
+      : `http://localhost:8080${cardImageUrl.replace(/\/product-images\/product-images\//, '/product-images/')}`
     : 'https://via.placeholder.com/400x300?text=No+Image';
 
   // Default placeholder image
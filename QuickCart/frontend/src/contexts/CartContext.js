@@ -8,15 +8,40 @@ const CartContext = createContext({
   cart: null,
   fetchCart: () => {},
   addItemToCart: () => {},
+  addItemsToCart: () => {},
   updateCartItemQuantity: () => {},
   removeItemFromCart: () => {},
   clearUserCart: () => {},
   cartItemCount: 0,
-  cartTotals: { subtotal: 0, total: 0 },
+  cartTotals: { subtotal: 0, discount: 0, total: 0 },
   loading: false,
   error: null
 });
 
+// Cart mutations return only the changed line and the new totals; patch them into the
+// cart we hold. Returns null when there is nothing to patch, e.g. the first add created the cart.
+const applyCartDelta = (cart, delta) => {
+  if (!cart || cart.id !== delta.cartId) return null;
+
+  const cartItems = cart.cartItems.filter(item => item.id !== delta.removedItemId);
+  if (delta.item) {
+    const index = cartItems.findIndex(item => item.id === delta.item.id);
+    if (index >= 0) {
+      cartItems[index] = delta.item;
+    } else {
+      cartItems.push(delta.item);
+    }
+  }
+  return {
+    ...cart,
+    cartItems,
+    itemCount: delta.itemCount,
+    subtotal: delta.subtotal,
+    discount: delta.discount,
+    total: delta.total
+  };
+};
+
 export const CartProvider = ({ children }) => {
   const [cart, setCart] = useState(null);
   const [loading, setLoading] = useState(false);
@@ -80,6 +105,15 @@ export const CartProvider = ({ children }) => {
     fetchCart(true);
   }, [fetchCart]);
 
+  const applyDelta = async (delta) => {
+    const patched = applyCartDelta(cart, delta);
+    if (patched) {
+      setCart(patched);
+    } else {
+      await fetchCart(true);
+    }
+  };
+
   const addItemToCart = async (productId, quantity) => {
     if (!currentUser || currentUser.role !== 'USER') {
       navigate('/login?redirect=' + encodeURIComponent(window.location.pathname));
@@ -90,7 +124,7 @@ export const CartProvider = ({ children }) => {
     setError(null);
     try {
       const response = await cartService.addItem({ productId, quantity });
-      setCart(response.data);
+      await applyDelta(response.data);
       lastFetchTime.current = Date.now();
       return response.data;
     } catch (err) {
@@ -106,6 +140,32 @@ export const CartProvider = ({ children }) => {
     }
   };
 
+  const addItemsToCart = async (items) => {
+    if (!currentUser || currentUser.role !== 'USER') {
+      navigate('/login?redirect=' + encodeURIComponent(window.location.pathname));
+      throw new Error('Please log in to add items to cart');
+    }
+
+    setLoading(true);
+    setError(null);
+    try {
+      const response = await cartService.addItems(items);
+      setCart(response.data);
+      lastFetchTime.current = Date.now();
+      return response.data;
+    } catch (err) {
+      logger.error('Add items to cart error:', err);
+      if (err.response?.status === 401) {
+        navigate('/login?redirect=' + encodeURIComponent(window.location.pathname));
+        throw new Error('Please log in to add items to cart');
+      }
+      setError(err.response?.data?.message || 'Failed to add items to cart.');
+      throw err;
+    } finally {
+      setLoading(false);
+    }
+  };
+
   const updateCartItemQuantity = async (productId, quantity) => {
     if (!currentUser || currentUser.role !== 'USER') {
       navigate('/login?redirect=' + encodeURIComponent(window.location.pathname));
@@ -116,7 +176,7 @@ export const CartProvider = ({ children }) => {
     setError(null);
     try {
       const response = await cartService.updateItemQuantity(productId, quantity);
-      setCart(response.data);
+      await applyDelta(response.data);
       lastFetchTime.current = Date.now();
     } catch (err) {
       logger.error('Update cart error:', err);
@@ -140,7 +200,7 @@ export const CartProvider = ({ children }) => {
     setError(null);
     try {
       const response = await cartService.removeItem(itemId);
-      setCart(response.data);
+      await applyDelta(response.data);
       lastFetchTime.current = Date.now();
       return response.data;
     } catch (err) {
@@ -190,39 +250,19 @@ export const CartProvider = ({ children }) => {
     return cart?.cartItems?.reduce((count, item) => count + item.quantity, 0) || 0;
   }, [cart]);
 
-  // Memoize cart totals calculation
-  const cartTotals = useMemo(() => {
-    if (!cart?.cartItems) {
-      return { subtotal: 0, total: 0 };
-    }
-
-    const subtotal = cart.cartItems.reduce((sum, item) => {
-      if (!item?.product) return sum;
-
-      const itemPrice = parseFloat(item.product.price || 0);
-      const discount = parseFloat(item.product.discountPercentage || 0);
-      const quantity = parseInt(item.quantity) || 0;
-
-      if (isNaN(itemPrice) || isNaN(discount) || isNaN(quantity)) {
-        return sum;
-      }
-
-      const discountedPrice = itemPrice * (1 - discount / 100);
-      return sum + (discountedPrice * quantity);
-    }, 0);
-
-    const finalSubtotal = Number(subtotal.toFixed(2));
-    return {
-      subtotal: finalSubtotal,
-      total: finalSubtotal
-    };
-  }, [cart]);
+  // Totals are computed by the backend with the cart
+  const cartTotals = useMemo(() => ({
+    subtotal: Number(cart?.subtotal || 0),
+    discount: Number(cart?.discount || 0),
+    total: Number(cart?.total || 0)
+  }), [cart]);
 
   return (
     <CartContext.Provider value={{
       cart,
       fetchCart,
       addItemToCart,
+      addItemsToCart,
       updateCartItemQuantity,
       removeItemFromCart,
       clearUserCart,
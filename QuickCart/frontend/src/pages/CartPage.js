@@ -250,7 +250,7 @@ const CartPage = () => {
                         </Form.Group>
                       </Col>
                       <Col md={2} xs={4} className="text-md-end mt-2 mt-md-0">
-                        <strong>{formatPrice(calculateSubtotal(item))}</strong>
+                        <strong>{formatPrice(item.lineTotal ?? calculateSubtotal(item))}</strong>
                       </Col>
                       <Col md={1} xs={2} className="text-end mt-2 mt-md-0">
                         <Button 
@@ -278,6 +278,12 @@ const CartPage = () => {
                   <span>Subtotal ({cartItemCount || 0} items)</span>
                   <strong>{formatPrice(cartTotals?.subtotal)}</strong>
                 </ListGroup.Item>
+                {cartTotals?.discount > 0 && (
+                  <ListGroup.Item className="d-flex justify-content-between">
+                    <span>Discount</span>
+                    <span className="text-success">-{formatPrice(cartTotals.discount)}</span>
+                  </ListGroup.Item>
+                )}
                 <ListGroup.Item className="d-flex justify-content-between">
                   <span>Shipping</span>
                   <span>Free</span>
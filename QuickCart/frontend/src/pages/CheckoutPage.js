@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useCallback } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import { Container, Row, Col, Card, Button, Form, Spinner, Alert, ListGroup, Breadcrumb, Badge } from 'react-bootstrap';
 import { Link, useNavigate } from 'react-router-dom';
 import { useAuth } from '../contexts/AuthContext';
@@ -7,12 +7,13 @@ import orderService from '../services/orderService';
 import { AUTH_ERROR_EVENT } from '../services/api';
 import authService from '../services/authService';
 import logger from '../utils/logger';
+import { randomUUID } from '../utils/uuid';
 import { toast } from 'react-hot-toast';
 import LoginModal from '../components/LoginModal';
 
 const CheckoutPage = () => {
   const { currentUser } = useAuth();
-  const { cart, cartItemCount, clearUserCart, loading: cartLoading, fetchCart } = useCart();
+  const { cart, cartItemCount, loading: cartLoading, fetchCart } = useCart();
   const navigate = useNavigate();
   const [showLoginModal, setShowLoginModal] = useState(false);
   const [isInitialLoad, setIsInitialLoad] = useState(true);
@@ -27,6 +28,8 @@ const CheckoutPage = () => {
   const [paymentMethod, setPaymentMethod] = useState('CREDIT_CARD');
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
+  // One key per checkout attempt: a retry after a lost response gets the same order back
+  const idempotencyKey = useRef(null);
 
   // Payment method options
   const paymentMethods = [
@@ -119,30 +122,30 @@ const CheckoutPage = () => {
       // Format shipping address as a string
       const formattedAddress = `${shippingAddress.street}, ${shippingAddress.city}, ${shippingAddress.postalCode}, ${shippingAddress.country}`;
 
-      // Create order request
-      const orderRequest = {
+      // The backend takes the items from the server-side cart
+      const checkoutRequest = {
         shippingAddress: formattedAddress,
-        paymentMethod: paymentMethod,
-        items: cart.cartItems.map(item => ({
-          productId: item.product.id,
-          quantity: item.quantity
-        }))
+        paymentMethod: paymentMethod
       };
 
-      logger.info('Creating order with request:', {
-        shippingAddress: orderRequest.shippingAddress,
-        paymentMethod: orderRequest.paymentMethod,
-        itemCount: orderRequest.items.length
+      logger.info('Checking out cart with request:', {
+        shippingAddress: checkoutRequest.shippingAddress,
+        paymentMethod: checkoutRequest.paymentMethod,
+        itemCount: cart.cartItems.length
       });
 
-      const order = await orderService.createOrder(orderRequest);
+      if (!idempotencyKey.current) {
+        idempotencyKey.current = randomUUID();
+      }
+      const order = await orderService.checkout(checkoutRequest, idempotencyKey.current);
       
       if (!order || !order.id) {
         throw new Error('Order creation failed: No order ID received');
       }
 
-      // Clear cart and redirect to order confirmation
-      await clearUserCart();
+      // The checkout already emptied the cart on the server; refresh ours and redirect
+      idempotencyKey.current = null;
+      await fetchCart(true);
       navigate(`/orders/${order.id}`);
     } catch (error) {
       logger.error('Error placing order:', error);
@@ -1,15 +1,19 @@
 import React, { useEffect, useState } from 'react';
-import { Container, Card, Table, Badge, Row, Col } from 'react-bootstrap';
+import { Container, Card, Table, Badge, Row, Col, Button, Alert } from 'react-bootstrap';
 import { useParams, Link, useNavigate } from 'react-router-dom';
 import { useOrders } from '../contexts/OrderContext';
+import { useCart } from '../contexts/CartContext';
 
 const OrderDetailPage = () => {
   const { id } = useParams();
   const navigate = useNavigate();
   const { getOrderById } = useOrders();
+  const { addItemsToCart } = useCart();
   const [order, setOrder] = useState(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [reordering, setReordering] = useState(false);
+  const [reorderError, setReorderError] = useState(null);
 
   useEffect(() => {
     const fetchOrder = async () => {
@@ -40,6 +44,23 @@ const OrderDetailPage = () => {
     fetchOrder();
   }, [id, getOrderById, navigate]);
 
+  // Puts every line of this order back in the cart with one request
+  const handleBuyAgain = async () => {
+    setReordering(true);
+    setReorderError(null);
+    try {
+      await addItemsToCart((order.orderItems || []).map((item) => ({
+        productId: item.product.id,
+        quantity: item.quantity
+      })));
+      navigate('/cart');
+    } catch (err) {
+      setReorderError(err.response?.data?.message || err.message || 'Failed to add items to cart');
+    } finally {
+      setReordering(false);
+    }
+  };
+
   const getStatusBadge = (status) => {
     const variants = {
       'PENDING': 'warning',
@@ -105,7 +126,17 @@ const OrderDetailPage = () => {
         </Col>
       </Row>
 
-      <h3>Order Items</h3>
+      <div className="d-flex justify-content-between align-items-center mb-2">
+        <h3 className="mb-0">Order Items</h3>
+        <Button
+          variant="primary"
+          onClick={handleBuyAgain}
+          disabled={reordering || !(order.orderItems || []).length}
+        >
+          {reordering ? 'Adding to cart...' : 'Buy Again'}
+        </Button>
+      </div>
+      {reorderError && <Alert variant="danger">{reorderError}</Alert>}
       <Table striped bordered hover responsive>
         <thead>
           <tr>
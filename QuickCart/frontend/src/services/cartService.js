@@ -75,11 +75,7 @@ import apiClient from './api';
 
   const addItem = async (itemRequest) => {
     try {
-      // Validate stock before adding
-      const productResponse = await apiClient.get(`/products/${itemRequest.productId}`);
-      if (productResponse.data.stock < itemRequest.quantity) {
-        throw new Error(`Insufficient stock for ${productResponse.data.name}. Available: ${productResponse.data.stock}`);
-      }
+      // The backend checks stock and holds it for the cart in the same request
       return await apiClient.post('/cart/items', itemRequest);
     } catch (error) {
       logger.error('Error adding item to cart:', error);
@@ -87,20 +83,18 @@ import apiClient from './api';
     }
   };
 
-  const updateItemQuantity = async (itemId, quantity) => {
+  // items: [{ productId, quantity }]; resolves with the whole updated cart
+  const addItems = async (items) => {
     try {
-      // Get current cart item to check product stock
-      const cartResponse = await apiClient.get('/cart');
-      const cartItem = cartResponse.data.cartItems.find(item => item.id === itemId);
-      if (!cartItem) {
-        throw new Error('Cart item not found');
-      }
-
-      // Check stock before updating
-      if (cartItem.product.stock < quantity) {
-        throw new Error(`Insufficient stock for ${cartItem.product.name}. Available: ${cartItem.product.stock}`);
-      }
+      return await apiClient.post('/cart/items:batch', items);
+    } catch (error) {
+      logger.error('Error adding items to cart:', error);
+      throw error;
+    }
+  };
 
+  const updateItemQuantity = async (itemId, quantity) => {
+    try {
       return await apiClient.put(`/cart/items/${itemId}`, null, { params: { quantity } });
     } catch (error) {
       logger.error('Error updating cart item quantity:', error);
@@ -129,6 +123,7 @@ import apiClient from './api';
   const cartService = {
     getCart,
     addItem,
+    addItems,
     updateItemQuantity,
     removeItem,
     clearCart,
@@ -3,6 +3,45 @@ import authService from './authService';
 import logger from '../utils/logger';
 import cartService from './cartService';
 
+// Turns a failed order request into an Error with a message fit for the checkout page
+const toOrderError = (error, url) => {
+  logger.error('API Error:', {
+    status: error.response?.status,
+    data: error.response?.data,
+    url,
+    method: 'post',
+    headers: error.response?.headers
+  });
+
+  // Handle 409 Conflict (Insufficient stock) error
+  if (error.response?.status === 409) {
+    const errorMessage = error.response.data?.message || error.response.data?.error || 'Insufficient stock';
+    
+    // Extract product information from error message
+    if (errorMessage.includes('for product:')) {
+      const productMatch = errorMessage.match(/for product:?\s*([^\.]+)/i);
+      const productName = productMatch ? productMatch[1].trim() : 'some items';
+      return new Error(`Unable to place order: ${productName} is out of stock. Please update your cart and try again.`);
+    }
+    
+    // If no product information is found, return a generic error
+    return new Error(`Unable to place order: ${errorMessage}. Please check your cart and try again.`);
+  }
+
+  // Handle 400 Bad Request
+  if (error.response?.status === 400) {
+    return new Error(error.response.data?.message || 'Invalid order request. Please check your cart and try again.');
+  }
+
+  // Handle 401 Unauthorized
+  if (error.response?.status === 401) {
+    return new Error('Your session has expired. Please log in again.');
+  }
+
+  // Handle other errors
+  return new Error(error.response?.data?.message || error.message || 'Failed to create order. Please try again.');
+};
+
 const createOrder = async (orderRequest) => {
   try {
     // Verify token before making request
@@ -64,41 +103,30 @@ const createOrder = async (orderRequest) => {
     
     return response.data;
   } catch (error) {
-    logger.error('API Error:', {
-      status: error.response?.status,
-      data: error.response?.data,
-      url: '/orders',
-      method: 'post',
-      headers: error.response?.headers
-    });
+    throw toOrderError(error, '/orders');
+  }
+};
 
-    // Handle 409 Conflict (Insufficient stock) error
-    if (error.response?.status === 409) {
-      const errorMessage = error.response.data?.message || error.response.data?.error || 'Insufficient stock';
-      
-      // Extract product information from error message
-      if (errorMessage.includes('for product:')) {
-        const productMatch = errorMessage.match(/for product:?\s*([^\.]+)/i);
-        const productName = productMatch ? productMatch[1].trim() : 'some items';
-        throw new Error(`Unable to place order: ${productName} is out of stock. Please update your cart and try again.`);
-      }
-      
-      // If no product information is found, throw a generic error
-      throw new Error(`Unable to place order: ${errorMessage}. Please check your cart and try again.`);
+// Places an order from the server-side cart. Pass the same idempotencyKey when retrying
+// one checkout attempt; the backend then returns the original order instead of a new one.
+const checkout = async ({ shippingAddress, paymentMethod }, idempotencyKey) => {
+  try {
+    if (!authService.isAuthenticated()) {
+      logger.error('User not authenticated when checking out');
+      throw new Error('Authentication required');
     }
 
-    // Handle 400 Bad Request
-    if (error.response?.status === 400) {
-      throw new Error(error.response.data?.message || 'Invalid order request. Please check your cart and try again.');
-    }
+    const response = await api.post('/orders/checkout', { shippingAddress, paymentMethod }, {
+      headers: { 'Idempotency-Key': idempotencyKey }
+    });
 
-    // Handle 401 Unauthorized
-    if (error.response?.status === 401) {
-      throw new Error('Your session has expired. Please log in again.');
+    if (!response.data || !response.data.id) {
+      logger.error('Checkout returned no order ID:', response.data);
+      throw new Error('Order creation failed: No order ID received');
     }
-
-    // Handle other errors
-    throw new Error(error.response?.data?.message || error.message || 'Failed to create order. Please try again.');
+    return response.data;
+  } catch (error) {
+    throw toOrderError(error, '/orders/checkout');
   }
 };
 
@@ -218,6 +246,7 @@ const getSellerEarnings = async () => {
 
 const orderService = {
   createOrder,
+  checkout,
   getUserOrders,
   getOrderById,
   getSellerOrders,